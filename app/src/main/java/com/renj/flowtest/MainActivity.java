@@ -42,11 +42,21 @@ public class MainActivity extends AppCompatActivity {
         etInputRows = findViewById(R.id.et_input_rows);
         btApplyRows = findViewById(R.id.bt_apply_rows);
 
-        flowLayoutAdapter = new MainFlowLayoutAdapter(DataUtils.getDataList(30));
+        flowLayoutAdapter = new MainFlowLayoutAdapter(this, DataUtils.getDataList(30));
         flowLayout.setAdapter(flowLayoutAdapter);
 
         setFlowLayoutFinishListener();
 
+        // 布局统计数据
+        flowLayout.setOnLayoutMetricsListener((flowLayout, metrics) ->
+                Logger.i("布局统计： 原因：" + metrics.getTrigger() + " ；完整布局：" + metrics.isFullLayout()
+                        + " ；测量耗时(us)：" + metrics.getMeasureTimeNanos() / 1000
+                        + " ；布局耗时(us)：" + metrics.getLayoutTimeNanos() / 1000
+                        + " ；创建子控件：" + metrics.getCreateViewCount()
+                        + " ；测量子控件：" + metrics.getMeasureChildCount()
+                        + " ；行数：" + metrics.getRowCount()
+                        + " ；显示：" + metrics.getShownChildCount() + "/" + metrics.getItemCount()));
+
         // 设置点击监听
         flowLayout.setOnItemClickListener((flowLayout, adapter, rowNumber, position) -> {
             // 移除孩子控件布局完成监听
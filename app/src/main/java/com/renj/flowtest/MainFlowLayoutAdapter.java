@@ -1,15 +1,12 @@
 package com.renj.flowtest;
 
 import android.content.Context;
-import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
-import com.renj.flowlayout.FlowLayout;
-import com.renj.flowlayout.FlowLayoutAdapter;
-import com.renj.flowtest.utils.ListUtils;
+import com.renj.flowlayout.FlowDiffUtil;
+import com.renj.flowlayout.TextTagFlowLayoutAdapter;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -25,54 +22,56 @@ import java.util.List;
  * <p>
  * ======================================================================
  */
-public class MainFlowLayoutAdapter extends FlowLayoutAdapter {
-    private List<String> dataList;
+public class MainFlowLayoutAdapter extends TextTagFlowLayoutAdapter<String> {
     private int mCheckedPosition = -1;
 
-    public MainFlowLayoutAdapter(List<String> datas) {
-        this.dataList = datas;
+    public MainFlowLayoutAdapter(Context context, List<String> datas) {
+        super(context, datas);
+        // 刷新数据时只通知改变了的部分
+        setItemCallback(new FlowDiffUtil.ItemCallback<String>() {
+            @Override
+            public boolean areItemsTheSame(String oldItem, String newItem) {
+                return oldItem.equals(newItem);
+            }
+
+            @Override
+            public boolean areContentsTheSame(String oldItem, String newItem) {
+                return true;
+            }
+
+            @Override
+            public Object getItemKey(String item) {
+                return item;
+            }
+        });
     }
 
     public void setCheckedPosition(int checkedPosition) {
+        int oldCheckedPosition = this.mCheckedPosition;
         if (this.mCheckedPosition == checkedPosition) {
             this.mCheckedPosition = -1;
         } else {
             this.mCheckedPosition = checkedPosition;
         }
-        notifyChange();
+        // 选中状态不影响尺寸，只需要重新绑定改变了的两项
+        if (oldCheckedPosition >= 0 && oldCheckedPosition < getItemCount()) {
+            notifyItemChanged(oldCheckedPosition);
+        }
+        if (mCheckedPosition >= 0 && mCheckedPosition != oldCheckedPosition) {
+            notifyItemChanged(mCheckedPosition);
+        }
     }
 
     public void setNewData(List<String> datas) {
         if (datas != null) {
-            if (this.dataList == null) {
-                this.dataList = new ArrayList<>();
-            } else {
-                this.dataList.clear();
-            }
-            this.dataList.addAll(datas);
-            notifyChange();
-        }
-    }
-
-    public void addData(List<String> datas) {
-        if (datas != null && dataList != null) {
-            this.dataList.addAll(datas);
-            notifyChange();
+            setData(datas);
         }
     }
 
     @Override
-    protected View createView(Context context, FlowLayout flowLayout, int position) {
+    protected TextView onCreateTextView(Context context) {
         TextView textView = new TextView(context);
-        textView.setText(dataList.get(position));
         textView.setTextSize(16);
-        if (position == mCheckedPosition) {
-            textView.setTextColor(context.getResources().getColor(R.color.color_white));
-            textView.setBackgroundResource(R.drawable.shape_text_bg2);
-        } else {
-            textView.setTextColor(context.getResources().getColor(R.color.color_text_grey));
-            textView.setBackgroundResource(R.drawable.shape_text_bg);
-        }
         ViewGroup.MarginLayoutParams params = new ViewGroup.MarginLayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
 //        params.topMargin = dip2px(context, 6);
 //        params.leftMargin = dip2px(context, 3);
@@ -83,14 +82,15 @@ public class MainFlowLayoutAdapter extends FlowLayoutAdapter {
     }
 
     @Override
-    public int getItemCount() {
-        return dataList == null ? 0 : dataList.size();
-    }
-
-    @Override
-    public Object getItem(int position) {
-        if (ListUtils.isEmpty(dataList)) return null;
-        return dataList.get(position);
+    protected void onBindTextView(TextView textView, String item, int position) {
+        Context context = textView.getContext();
+        if (position == mCheckedPosition) {
+            textView.setTextColor(context.getResources().getColor(R.color.color_white));
+            textView.setBackgroundResource(R.drawable.shape_text_bg2);
+        } else {
+            textView.setTextColor(context.getResources().getColor(R.color.color_text_grey));
+            textView.setBackgroundResource(R.drawable.shape_text_bg);
+        }
     }
 
     public int dip2px(Context context, float dpValue) {
@@ -0,0 +1,61 @@
+package com.renj.flowlayout.benchmark;
+
+import java.util.Random;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   17:20
+ * <p>
+ * 描述：基准测试使用的子控件尺寸数据，模拟 1080px 宽屏幕上的文字标签。<br/>
+ * 使用固定的随机数种子，每次运行的数据都一样。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+final class BenchmarkItems {
+    static final int CONTENT_WIDTH = 1080; // 内容宽度
+    static final int HORIZONTAL_SPACING = 24; // 水平方向间距
+    static final int VERTICAL_SPACING = 24; // 竖直方向间距
+
+    /**
+     * 随机宽度，模拟不同长度的文字标签
+     */
+    static final String WIDTH_RANDOM = "random";
+    /**
+     * 相同宽度
+     */
+    static final String WIDTH_UNIFORM = "uniform";
+
+    private static final int MIN_WIDTH = 80;
+    private static final int MAX_WIDTH = 480;
+    private static final int UNIFORM_WIDTH = 240;
+    private static final int HEIGHT = 96;
+    private static final int MARGIN = 8;
+
+    final int itemCount;
+    final int[] widths;
+    final int[] heights;
+    final int[] margins;
+
+    BenchmarkItems(int itemCount, String widthMode) {
+        this.itemCount = itemCount;
+        this.widths = new int[itemCount];
+        this.heights = new int[itemCount];
+        this.margins = new int[itemCount * 4];
+
+        Random random = new Random(20201029L);
+        boolean uniform = WIDTH_UNIFORM.equals(widthMode);
+        for (int i = 0; i < itemCount; i++) {
+            widths[i] = uniform ? UNIFORM_WIDTH : MIN_WIDTH + random.nextInt(MAX_WIDTH - MIN_WIDTH);
+            heights[i] = HEIGHT;
+            margins[i * 4] = MARGIN;
+            margins[i * 4 + 1] = MARGIN;
+            margins[i * 4 + 2] = MARGIN;
+            margins[i * 4 + 3] = MARGIN;
+        }
+    }
+}
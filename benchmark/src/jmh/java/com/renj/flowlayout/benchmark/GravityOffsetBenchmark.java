@@ -0,0 +1,62 @@
+package com.renj.flowlayout.benchmark;
+
+import com.renj.flowlayout.FlowLineBreaker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   17:31
+ * <p>
+ * 描述：水平方向对齐方式偏移量计算基准测试，和 FlowLayout.onLayout() 一样遍历每一行的每个子控件，
+ * 按 HORIZONTAL_GRAVITY_* 计算偏移量并得到最终的左边位置。<br/>
+ * gravity 参数：0：居左  1：居右  2：左右对齐  3：居中，和 FlowLayout.HORIZONTAL_GRAVITY_* 的值一致。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+@State(Scope.Benchmark)
+public class GravityOffsetBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int itemCount;
+
+    @Param({BenchmarkItems.WIDTH_RANDOM, BenchmarkItems.WIDTH_UNIFORM})
+    public String widthMode;
+
+    @Param({"0", "1", "2", "3"})
+    public int gravity;
+
+    private FlowLineBreaker mLineBreaker;
+
+    @Setup
+    public void setup() {
+        BenchmarkItems items = new BenchmarkItems(itemCount, widthMode);
+        mLineBreaker = new FlowLineBreaker();
+        mLineBreaker.setContentWidth(BenchmarkItems.CONTENT_WIDTH);
+        mLineBreaker.setSpacing(BenchmarkItems.HORIZONTAL_SPACING, BenchmarkItems.VERTICAL_SPACING);
+        mLineBreaker.breakLines(items.itemCount, items.widths, items.heights, items.margins);
+    }
+
+    @Benchmark
+    public long layoutRows() {
+        FlowLineBreaker lineBreaker = mLineBreaker;
+        long checksum = 0;
+        for (int row = 0, rowCount = lineBreaker.getRowCount(); row < rowCount; row++) {
+            int indexInRow = 0;
+            for (int i = lineBreaker.getRowStart(row), end = lineBreaker.getRowEnd(row); i < end; i++) {
+                if (lineBreaker.getItemRow(i) != row) continue;
+
+                checksum += lineBreaker.getItemLeft(i) + lineBreaker.getRowOffsetX(gravity, row, indexInRow++);
+            }
+        }
+        return checksum;
+    }
+}
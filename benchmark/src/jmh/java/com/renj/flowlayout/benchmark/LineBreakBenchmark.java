@@ -0,0 +1,96 @@
+package com.renj.flowlayout.benchmark;
+
+import com.renj.flowlayout.FlowLineBreaker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   17:24
+ * <p>
+ * 描述：换行计算({@link FlowLineBreaker})基准测试。<br/>
+ * {@link #breakLines()}：所有子控件完整换行，对应完整布局；<br/>
+ * {@link #reflowAfterItemChanged()}：中间一个子控件宽度改变后，从所在行开始重新换行并复用后面没有改变的行，
+ * 对应 notifyItemChanged() 之后的布局。限制了行数时不复用后面的行，重新换行到最大行数为止，
+ * 所以最大行数按完整换行行数的百分比设置、改变的子控件放在显示出来的子控件中间，计算量随子控件数量增长。<br/>
+ * {@link #breakUniform()}：所有子控件尺寸相同时按算术换行，对应适配器声明了固定尺寸时的布局。<br/>
+ * 同一个 {@link FlowLineBreaker} 对象重复使用，gc profiler 的 gc.alloc.rate.norm 应该接近 0。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+@State(Scope.Benchmark)
+public class LineBreakBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int itemCount;
+
+    @Param({BenchmarkItems.WIDTH_RANDOM, BenchmarkItems.WIDTH_UNIFORM})
+    public String widthMode;
+
+    // 最大行数占不限制行数时总行数的百分比，-1：不限制行数
+    @Param({"-1", "10", "50"})
+    public int maxRowPercent;
+
+    private BenchmarkItems mItems;
+    private FlowLineBreaker mLineBreaker;
+    private int mChangedPosition;
+    private int mChangedWidth;
+
+    @Setup
+    public void setup() {
+        mItems = new BenchmarkItems(itemCount, widthMode);
+        mLineBreaker = new FlowLineBreaker();
+        mLineBreaker.setContentWidth(BenchmarkItems.CONTENT_WIDTH);
+        mLineBreaker.setSpacing(BenchmarkItems.HORIZONTAL_SPACING, BenchmarkItems.VERTICAL_SPACING);
+        // 预热数组容量，同时得到不限制行数时的总行数
+        int rowCount = mLineBreaker.breakLines(mItems.itemCount, mItems.widths, mItems.heights, mItems.margins);
+        if (maxRowPercent >= 0) {
+            mLineBreaker.setMaxRowCount(Math.max(1, (int) ((long) rowCount * maxRowPercent / 100)));
+            mLineBreaker.breakLines(mItems.itemCount, mItems.widths, mItems.heights, mItems.margins);
+        }
+        // 改变显示出来的子控件中间的一个
+        int shownItemCount = mLineBreaker.getRowCount() == 0 ? 0 : mLineBreaker.getRowEnd(mLineBreaker.getRowCount() - 1);
+        mChangedPosition = shownItemCount / 2;
+        mChangedWidth = mItems.widths[mChangedPosition];
+    }
+
+    @Benchmark
+    public int breakLines() {
+        return mLineBreaker.breakLines(mItems.itemCount, mItems.widths, mItems.heights, mItems.margins);
+    }
+
+    @Benchmark
+    public int reflowAfterItemChanged() {
+        // 宽度在两个值之间交替改变，保证每次调用都会真正重新换行
+        int[] widths = mItems.widths;
+        widths[mChangedPosition] = widths[mChangedPosition] == mChangedWidth ? mChangedWidth / 2 : mChangedWidth;
+
+        FlowLineBreaker lineBreaker = mLineBreaker;
+        int[] heights = mItems.heights;
+        int[] margins = mItems.margins;
+        int startRow = lineBreaker.findRowForPosition(mChangedPosition - 1);
+        for (int i = lineBreaker.beginBreak(startRow, mChangedPosition + 1); i < itemCount; i++) {
+            int result = lineBreaker.addItem(i, widths[i], heights[i],
+                    margins[i * 4], margins[i * 4 + 1], margins[i * 4 + 2], margins[i * 4 + 3]);
+            if (result == FlowLineBreaker.RESULT_ROW_LIMIT || result == FlowLineBreaker.RESULT_ROWS_REUSED) {
+                break;
+            }
+        }
+        lineBreaker.endBreak();
+        return lineBreaker.getRowCount();
+    }
+
+    @Benchmark
+    public int breakUniform() {
+        mLineBreaker.breakUniform(mItems.widths[0], mItems.heights[0]);
+        return mLineBreaker.getRowCount();
+    }
+}
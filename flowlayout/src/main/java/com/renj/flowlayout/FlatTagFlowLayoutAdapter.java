@@ -0,0 +1,77 @@
+package com.renj.flowlayout;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.view.View;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   19:55
+ * <p>
+ * 描述：绘制模式的标签适配器，不创建子控件。<br/>
+ * 只需要提供每一项的文字和样式({@link FlowTagStyle})，{@link FlowLayout} 按文字宽度换行（对齐方式、间距、最大行数等和普通模式一样），
+ * 在 dispatchDraw() 中只绘制可见行的标签，点击时按换行结果查找位置并回调
+ * {@link FlowLayout.OnItemClickListener}。
+ * 没有子控件，内存占用只有每一项的尺寸和位置，适合几万个标签的标签云。<br/>
+ * 注意：<br/>
+ * 1. 标签都是单行文字，超过 {@link FlowLayout} 内容宽度时末尾显示省略号；<br/>
+ * 2. 同一种样式的标签返回同一个 {@link FlowTagStyle} 对象，样式修改后需要调用 {@link #notifyChange()}。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public abstract class FlatTagFlowLayoutAdapter extends FlowLayoutAdapter {
+    // 最近一次测量时子控件的最大可用宽度，宽度等于它的标签可能被限制了，绘制时需要检查省略
+    private int mMaxWidth = Integer.MAX_VALUE;
+
+    /**
+     * 获取指定位置需要显示的文字
+     *
+     * @param position 位置
+     * @return 文字
+     */
+    protected abstract CharSequence getItemText(int position);
+
+    /**
+     * 获取指定位置的样式，同一种样式需要返回同一个对象
+     *
+     * @param position 位置
+     * @return 样式
+     */
+    protected abstract FlowTagStyle getItemStyle(int position);
+
+    @Override
+    protected final View onCreateView(Context context, FlowLayout flowLayout, int viewType) {
+        throw new IllegalStateException("FlatTagFlowLayoutAdapter does not create child views.");
+    }
+
+    @Override
+    boolean getPrecomputedSize(int position, int maxWidth, int maxHeight, int[] itemSize) {
+        FlowTagStyle style = getItemStyle(position);
+        mMaxWidth = maxWidth;
+        itemSize[FlowMeasureCache.WIDTH] = Math.min(style.measureWidth(getText(position)), maxWidth);
+        itemSize[FlowMeasureCache.HEIGHT] = Math.min(style.measureHeight(), maxHeight);
+        itemSize[FlowMeasureCache.LEFT_MARGIN] = 0;
+        itemSize[FlowMeasureCache.TOP_MARGIN] = 0;
+        itemSize[FlowMeasureCache.RIGHT_MARGIN] = 0;
+        itemSize[FlowMeasureCache.BOTTOM_MARGIN] = 0;
+        itemSize[FlowMeasureCache.GONE] = 0;
+        return true;
+    }
+
+    /**
+     * 绘制指定位置的标签
+     */
+    void drawItem(Canvas canvas, int position, int left, int top, int right, int bottom, boolean pressed) {
+        getItemStyle(position).draw(canvas, getText(position), left, top, right, bottom, pressed, right - left >= mMaxWidth);
+    }
+
+    private CharSequence getText(int position) {
+        CharSequence text = getItemText(position);
+        return text == null ? "" : text;
+    }
+}
@@ -0,0 +1,210 @@
+package com.renj.flowlayout;
+
+import android.view.View;
+
+import java.util.Arrays;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   16:40
+ * <p>
+ * 描述：{@link FlowLayout} 所有位置的子控件信息，索引和数据位置一致。<br/>
+ * 绑定的子控件、是否已测量、测量尺寸和外边距分别保存在数组中，数组按 1.5 倍扩容并在多次布局之间复用，
+ * 数据数量不再增大时，重新布局不会分配新的对象。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+final class FlowChildViewStore {
+    private static final int MIN_CAPACITY = 16;
+
+    private static final int FLAG_MEASURED = 1;     // 已经测量过（或者有缓存的测量结果）
+    private static final int FLAG_GONE = 1 << 1;    // 是否为 View.GONE
+
+    private int mItemCount;
+    private View[] mViews = new View[0];       // 绑定的子控件，没有显示时为 null
+    private int[] mFlags = new int[0];
+    private int[] mWidth = new int[0];         // 测量宽度
+    private int[] mHeight = new int[0];        // 测量高度
+    private int[] mLeftMargin = new int[0];
+    private int[] mTopMargin = new int[0];
+    private int[] mRightMargin = new int[0];
+    private int[] mBottomMargin = new int[0];
+
+    /**
+     * 完整布局时调用，所有位置都没有绑定子控件并且需要重新测量，调用前需要先处理已经绑定的子控件
+     */
+    void setItemCount(int itemCount) {
+        ensureCapacity(itemCount);
+        Arrays.fill(mViews, 0, Math.max(mItemCount, itemCount), null);
+        Arrays.fill(mFlags, 0, itemCount, 0);
+        mItemCount = itemCount;
+    }
+
+    int getItemCount() {
+        return mItemCount;
+    }
+
+    View getView(int position) {
+        return mViews[position];
+    }
+
+    void setView(int position, View view) {
+        mViews[position] = view;
+    }
+
+    boolean isMeasured(int position) {
+        return (mFlags[position] & FLAG_MEASURED) != 0;
+    }
+
+    /**
+     * 标记为需要重新测量
+     */
+    void invalidateMeasure(int position) {
+        mFlags[position] &= ~FLAG_MEASURED;
+    }
+
+    boolean isGone(int position) {
+        return (mFlags[position] & FLAG_GONE) != 0;
+    }
+
+    int getWidth(int position) {
+        return mWidth[position];
+    }
+
+    int getHeight(int position) {
+        return mHeight[position];
+    }
+
+    int getLeftMargin(int position) {
+        return mLeftMargin[position];
+    }
+
+    int getTopMargin(int position) {
+        return mTopMargin[position];
+    }
+
+    int getRightMargin(int position) {
+        return mRightMargin[position];
+    }
+
+    int getBottomMargin(int position) {
+        return mBottomMargin[position];
+    }
+
+    /**
+     * 保存测量结果
+     *
+     * @param itemSize 测量结果，索引见 {@link FlowMeasureCache}
+     */
+    void setMeasuredSize(int position, int[] itemSize) {
+        mFlags[position] = FLAG_MEASURED | (itemSize[FlowMeasureCache.GONE] != 0 ? FLAG_GONE : 0);
+        mWidth[position] = itemSize[FlowMeasureCache.WIDTH];
+        mHeight[position] = itemSize[FlowMeasureCache.HEIGHT];
+        mLeftMargin[position] = itemSize[FlowMeasureCache.LEFT_MARGIN];
+        mTopMargin[position] = itemSize[FlowMeasureCache.TOP_MARGIN];
+        mRightMargin[position] = itemSize[FlowMeasureCache.RIGHT_MARGIN];
+        mBottomMargin[position] = itemSize[FlowMeasureCache.BOTTOM_MARGIN];
+    }
+
+    /**
+     * 插入了数据，之后的位置后移，插入的位置没有绑定子控件并且需要测量
+     */
+    void onItemRangeInserted(int positionStart, int itemCount) {
+        ensureCapacity(mItemCount + itemCount);
+        int moveCount = mItemCount - positionStart;
+        int to = positionStart + itemCount;
+        System.arraycopy(mViews, positionStart, mViews, to, moveCount);
+        System.arraycopy(mFlags, positionStart, mFlags, to, moveCount);
+        System.arraycopy(mWidth, positionStart, mWidth, to, moveCount);
+        System.arraycopy(mHeight, positionStart, mHeight, to, moveCount);
+        System.arraycopy(mLeftMargin, positionStart, mLeftMargin, to, moveCount);
+        System.arraycopy(mTopMargin, positionStart, mTopMargin, to, moveCount);
+        System.arraycopy(mRightMargin, positionStart, mRightMargin, to, moveCount);
+        System.arraycopy(mBottomMargin, positionStart, mBottomMargin, to, moveCount);
+        Arrays.fill(mViews, positionStart, to, null);
+        Arrays.fill(mFlags, positionStart, to, 0);
+        mItemCount += itemCount;
+        updatePositions(to, mItemCount);
+    }
+
+    /**
+     * 移除了数据，之后的位置前移，调用前需要先回收被移除位置绑定的子控件
+     */
+    void onItemRangeRemoved(int positionStart, int itemCount) {
+        int positionEnd = positionStart + itemCount;
+        int moveCount = mItemCount - positionEnd;
+        System.arraycopy(mViews, positionEnd, mViews, positionStart, moveCount);
+        System.arraycopy(mFlags, positionEnd, mFlags, positionStart, moveCount);
+        System.arraycopy(mWidth, positionEnd, mWidth, positionStart, moveCount);
+        System.arraycopy(mHeight, positionEnd, mHeight, positionStart, moveCount);
+        System.arraycopy(mLeftMargin, positionEnd, mLeftMargin, positionStart, moveCount);
+        System.arraycopy(mTopMargin, positionEnd, mTopMargin, positionStart, moveCount);
+        System.arraycopy(mRightMargin, positionEnd, mRightMargin, positionStart, moveCount);
+        System.arraycopy(mBottomMargin, positionEnd, mBottomMargin, positionStart, moveCount);
+        Arrays.fill(mViews, mItemCount - itemCount, mItemCount, null);
+        mItemCount -= itemCount;
+        updatePositions(positionStart, mItemCount);
+    }
+
+    /**
+     * 数据位置移动了，绑定的子控件和测量结果跟着移动
+     */
+    void onItemMoved(int fromPosition, int toPosition) {
+        View view = mViews[fromPosition];
+        if (fromPosition < toPosition) {
+            System.arraycopy(mViews, fromPosition + 1, mViews, fromPosition, toPosition - fromPosition);
+        } else {
+            System.arraycopy(mViews, toPosition, mViews, toPosition + 1, fromPosition - toPosition);
+        }
+        mViews[toPosition] = view;
+        moveItem(mFlags, fromPosition, toPosition);
+        moveItem(mWidth, fromPosition, toPosition);
+        moveItem(mHeight, fromPosition, toPosition);
+        moveItem(mLeftMargin, fromPosition, toPosition);
+        moveItem(mTopMargin, fromPosition, toPosition);
+        moveItem(mRightMargin, fromPosition, toPosition);
+        moveItem(mBottomMargin, fromPosition, toPosition);
+        updatePositions(Math.min(fromPosition, toPosition), Math.max(fromPosition, toPosition) + 1);
+    }
+
+    private static void moveItem(int[] array, int fromPosition, int toPosition) {
+        int value = array[fromPosition];
+        if (fromPosition < toPosition) {
+            System.arraycopy(array, fromPosition + 1, array, fromPosition, toPosition - fromPosition);
+        } else {
+            System.arraycopy(array, toPosition, array, toPosition + 1, fromPosition - toPosition);
+        }
+        array[toPosition] = value;
+    }
+
+    /**
+     * 更新指定范围内绑定的子控件记录的位置
+     */
+    private void updatePositions(int fromPosition, int toPosition) {
+        for (int i = fromPosition; i < toPosition; i++) {
+            View view = mViews[i];
+            if (view != null) {
+                ((FlowLayout.LayoutParams) view.getLayoutParams()).position = i;
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mFlags.length) return;
+
+        int newCapacity = Math.max(Math.max(capacity, MIN_CAPACITY), mFlags.length + (mFlags.length >> 1));
+        mViews = Arrays.copyOf(mViews, newCapacity);
+        mFlags = Arrays.copyOf(mFlags, newCapacity);
+        mWidth = Arrays.copyOf(mWidth, newCapacity);
+        mHeight = Arrays.copyOf(mHeight, newCapacity);
+        mLeftMargin = Arrays.copyOf(mLeftMargin, newCapacity);
+        mTopMargin = Arrays.copyOf(mTopMargin, newCapacity);
+        mRightMargin = Arrays.copyOf(mRightMargin, newCapacity);
+        mBottomMargin = Arrays.copyOf(mBottomMargin, newCapacity);
+    }
+}
@@ -0,0 +1,478 @@
+package com.renj.flowlayout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   18:40
+ * <p>
+ * 描述：计算两个数据集合之间的差异，得到把旧集合变成新集合需要的最少的移除、移动、插入和改变操作，
+ * 通过 {@link DiffResult#dispatchUpdatesTo(FlowLayoutAdapter)} 依次调用适配器的 notifyItemXxx() 系列方法，
+ * {@link FlowLayout} 只从第一个受影响的行开始重新换行，没有改变的数据保持原来的控件和测量结果。<br/>
+ * 使用 Myers 差异算法（线性空间版本），先去掉相同的开头和结尾，只有少量数据不同时计算量很小。
+ * {@link #calculateDiff(List, List, ItemCallback)} 不访问控件，可以（推荐）在后台线程中调用，
+ * 直接使用 {@link FlowListDiffer} 会在后台线程中计算并回到主线程通知。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public final class FlowDiffUtil {
+    private static final int OP_REMOVE = 0;
+    private static final int OP_MOVE = 1;
+    private static final int OP_INSERT = 2;
+    private static final int OP_CHANGE = 3;
+
+    private FlowDiffUtil() {
+    }
+
+    /**
+     * 计算差异，检测移动的数据。<br/>
+     * 检测移动时，{@link ItemCallback#getItemKey(Object)} 返回了 key 的按 key 查找，计算量和数据数量成正比；
+     * 没有返回 key 时需要两两比较没有按顺序对应上的旧数据和新数据，最多调用 旧数量 × 新数量 次
+     * {@link ItemCallback#areItemsTheSame(Object, Object)}，数据很多并且顺序改变很大时比较耗时，
+     * 可以提供 key 或者使用 {@link #calculateDiff(List, List, ItemCallback, boolean)} 不检测移动
+     *
+     * @param oldList  旧数据
+     * @param newList  新数据
+     * @param callback 比较两项数据
+     * @return 差异结果
+     */
+    public static <T> DiffResult calculateDiff(List<T> oldList, List<T> newList, ItemCallback<T> callback) {
+        return calculateDiff(oldList, newList, callback, true);
+    }
+
+    /**
+     * 计算差异
+     *
+     * @param oldList     旧数据
+     * @param newList     新数据
+     * @param callback    比较两项数据
+     * @param detectMoves 是否检测移动的数据，检测时没有提供 key（{@link ItemCallback#getItemKey(Object)}）需要两两比较所有被移除和被插入的数据，数量很多时比较耗时；
+     *                    不检测时移动的数据按移除再插入处理
+     * @return 差异结果
+     */
+    public static <T> DiffResult calculateDiff(List<T> oldList, List<T> newList, ItemCallback<T> callback, boolean detectMoves) {
+        int oldSize = oldList.size();
+        int newSize = newList.size();
+        // 新旧数据的对应关系，没有对应的数据时为 -1
+        int[] oldToNew = new int[oldSize];
+        int[] newToOld = new int[newSize];
+        Arrays.fill(oldToNew, -1);
+        Arrays.fill(newToOld, -1);
+        findMatches(oldList, newList, callback, oldToNew, newToOld);
+
+        // 没有按顺序对应上的数据中，同一项数据的是移动
+        boolean[] moved = new boolean[oldSize];
+        if (detectMoves && !findMovesByKey(oldList, newList, callback, oldToNew, newToOld, moved)) {
+            for (int oldPosition = 0; oldPosition < oldSize; oldPosition++) {
+                if (oldToNew[oldPosition] != -1) continue;
+                T oldItem = oldList.get(oldPosition);
+                for (int newPosition = 0; newPosition < newSize; newPosition++) {
+                    if (newToOld[newPosition] == -1 && callback.areItemsTheSame(oldItem, newList.get(newPosition))) {
+                        oldToNew[oldPosition] = newPosition;
+                        newToOld[newPosition] = oldPosition;
+                        moved[oldPosition] = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        IntList ops = new IntList();
+        // 1. 从后往前移除，前面的位置不受影响
+        for (int oldPosition = oldSize - 1; oldPosition >= 0; ) {
+            if (oldToNew[oldPosition] != -1) {
+                oldPosition--;
+                continue;
+            }
+            int end = oldPosition + 1;
+            while (oldPosition >= 0 && oldToNew[oldPosition] == -1) {
+                oldPosition--;
+            }
+            ops.add(OP_REMOVE, oldPosition + 1, end - oldPosition - 1);
+        }
+
+        // 2. 移动的数据放到新数据中前一项的后面，处理完成后剩下的数据顺序和新数据一致
+        addMoves(oldToNew, newToOld, moved, ops);
+
+        // 3. 按新数据的顺序插入，并通知内容改变了的数据
+        for (int newPosition = 0; newPosition < newSize; ) {
+            int oldPosition = newToOld[newPosition];
+            if (oldPosition == -1) {
+                int start = newPosition;
+                while (newPosition < newSize && newToOld[newPosition] == -1) {
+                    newPosition++;
+                }
+                ops.add(OP_INSERT, start, newPosition - start);
+            } else if (!callback.areContentsTheSame(oldList.get(oldPosition), newList.get(newPosition))) {
+                int start = newPosition;
+                do {
+                    newPosition++;
+                } while (newPosition < newSize && newToOld[newPosition] != -1
+                        && !callback.areContentsTheSame(oldList.get(newToOld[newPosition]), newList.get(newPosition)));
+                ops.add(OP_CHANGE, start, newPosition - start);
+            } else {
+                newPosition++;
+            }
+        }
+        return new DiffResult(ops.toArray(), oldSize);
+    }
+
+    /**
+     * 回调提供了 {@link ItemCallback#getItemKey(Object)} 时，按 key 查找移动的数据，不需要两两比较
+     *
+     * @return false：有数据没有 key，需要两两比较
+     */
+    private static <T> boolean findMovesByKey(List<T> oldList, List<T> newList, ItemCallback<T> callback,
+                                              int[] oldToNew, int[] newToOld, boolean[] moved) {
+        // key 对应的第一个没有对应上的新数据位置，相同 key 的其他位置按顺序链接在 nextNewPositions 中
+        HashMap<Object, Integer> firstNewPositions = new HashMap<>();
+        int[] nextNewPositions = new int[newList.size()];
+        for (int newPosition = newList.size() - 1; newPosition >= 0; newPosition--) {
+            if (newToOld[newPosition] != -1) continue;
+            Object key = callback.getItemKey(newList.get(newPosition));
+            if (key == null) return false;
+            Integer next = firstNewPositions.put(key, newPosition);
+            nextNewPositions[newPosition] = next == null ? -1 : next;
+        }
+        for (int oldPosition = 0; oldPosition < oldList.size(); oldPosition++) {
+            if (oldToNew[oldPosition] == -1 && callback.getItemKey(oldList.get(oldPosition)) == null) return false;
+        }
+
+        for (int oldPosition = 0; oldPosition < oldList.size(); oldPosition++) {
+            if (oldToNew[oldPosition] != -1) continue;
+            Object key = callback.getItemKey(oldList.get(oldPosition));
+            Integer newPosition = firstNewPositions.get(key);
+            if (newPosition == null) continue;
+            int next = nextNewPositions[newPosition];
+            if (next == -1) {
+                firstNewPositions.remove(key);
+            } else {
+                firstNewPositions.put(key, next);
+            }
+            oldToNew[oldPosition] = newPosition;
+            newToOld[newPosition] = oldPosition;
+            moved[oldPosition] = true;
+        }
+        return true;
+    }
+
+    /**
+     * 按新数据的顺序依次把移动的数据放到前一项数据的后面，得到每次移动的开始和目标位置。<br/>
+     * 移动之后的数据一定紧跟在新数据中它前面最近的没有移动的数据（没有时在最前面）和这之间已经移动的数据后面，
+     * 所以事先给每项数据分配移动前和移动后两个有序的槽位，用树状数组统计某个槽位前面有多少数据，就是当时的位置
+     */
+    private static void addMoves(int[] oldToNew, int[] newToOld, boolean[] moved, IntList ops) {
+        int oldSize = oldToNew.length;
+        int newSize = newToOld.length;
+        // 每项移动的数据跟随的没有移动的数据（旧位置），没有时为 -1；以及每项没有移动的数据后面跟随的移动数据数量
+        int[] anchors = new int[oldSize];
+        int[] followCounts = new int[oldSize];
+        int frontCount = 0;
+        int moveCount = 0;
+        int anchor = -1;
+        for (int newPosition = 0; newPosition < newSize; newPosition++) {
+            int oldPosition = newToOld[newPosition];
+            if (oldPosition == -1) continue;
+            if (!moved[oldPosition]) {
+                anchor = oldPosition;
+            } else {
+                anchors[oldPosition] = anchor;
+                if (anchor == -1) {
+                    frontCount++;
+                } else {
+                    followCounts[anchor]++;
+                }
+                moveCount++;
+            }
+        }
+        if (moveCount == 0) return;
+
+        // 分配槽位：最前面是跟随在最前面的移动数据，之后按旧数据的顺序依次是每项数据移动前的槽位，
+        // 没有移动的数据后面紧跟着跟随它的移动数据的槽位
+        int[] fromSlots = new int[oldSize];
+        int[] toSlots = new int[oldSize];
+        int slotCount = frontCount;
+        for (int oldPosition = 0; oldPosition < oldSize; oldPosition++) {
+            if (oldToNew[oldPosition] == -1) continue;
+            fromSlots[oldPosition] = slotCount++;
+            if (!moved[oldPosition]) {
+                // 暂时保存跟随数据的开始槽位
+                toSlots[oldPosition] = slotCount;
+                slotCount += followCounts[oldPosition];
+            }
+        }
+        int frontSlot = 0;
+        for (int newPosition = 0; newPosition < newSize; newPosition++) {
+            int oldPosition = newToOld[newPosition];
+            if (oldPosition == -1 || !moved[oldPosition]) continue;
+            int anchorPosition = anchors[oldPosition];
+            toSlots[oldPosition] = anchorPosition == -1 ? frontSlot++ : toSlots[anchorPosition]++;
+        }
+
+        // 树状数组，下标从 1 开始
+        int[] tree = new int[slotCount + 1];
+        for (int oldPosition = 0; oldPosition < oldSize; oldPosition++) {
+            if (oldToNew[oldPosition] != -1) {
+                updateTree(tree, fromSlots[oldPosition], 1);
+            }
+        }
+        for (int newPosition = 0; newPosition < newSize; newPosition++) {
+            int oldPosition = newToOld[newPosition];
+            if (oldPosition == -1 || !moved[oldPosition]) continue;
+            int from = countBefore(tree, fromSlots[oldPosition]);
+            updateTree(tree, fromSlots[oldPosition], -1);
+            int to = countBefore(tree, toSlots[oldPosition]);
+            updateTree(tree, toSlots[oldPosition], 1);
+            if (from != to) {
+                ops.add(OP_MOVE, from, to);
+            }
+        }
+    }
+
+    private static void updateTree(int[] tree, int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * 槽位前面有多少数据
+     */
+    private static int countBefore(int[] tree, int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * 找出按顺序对应的数据（最长公共子序列）
+     */
+    private static <T> void findMatches(List<T> oldList, List<T> newList, ItemCallback<T> callback,
+                                        int[] oldToNew, int[] newToOld) {
+        int max = oldList.size() + newList.size() + 1;
+        // 正向和反向搜索时每条对角线能到达的最远位置，下标加上 max 偏移
+        int[] forward = new int[max * 2 + 1];
+        int[] backward = new int[max * 2 + 1];
+        int[] snake = new int[4];
+        ArrayList<int[]> ranges = new ArrayList<>();
+        ranges.add(new int[]{0, oldList.size(), 0, newList.size()});
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.remove(ranges.size() - 1);
+            int oldStart = range[0];
+            int oldEnd = range[1];
+            int newStart = range[2];
+            int newEnd = range[3];
+            // 相同的开头和结尾直接对应
+            while (oldStart < oldEnd && newStart < newEnd
+                    && callback.areItemsTheSame(oldList.get(oldStart), newList.get(newStart))) {
+                oldToNew[oldStart] = newStart;
+                newToOld[newStart] = oldStart;
+                oldStart++;
+                newStart++;
+            }
+            while (oldStart < oldEnd && newStart < newEnd
+                    && callback.areItemsTheSame(oldList.get(oldEnd - 1), newList.get(newEnd - 1))) {
+                oldEnd--;
+                newEnd--;
+                oldToNew[oldEnd] = newEnd;
+                newToOld[newEnd] = oldEnd;
+            }
+            if (oldStart == oldEnd || newStart == newEnd) continue;
+
+            findMiddleSnake(oldList, newList, callback, oldStart, oldEnd, newStart, newEnd, forward, backward, max, snake);
+            for (int oldPosition = snake[0], newPosition = snake[1]; oldPosition < snake[2]; oldPosition++, newPosition++) {
+                oldToNew[oldPosition] = newPosition;
+                newToOld[newPosition] = oldPosition;
+            }
+            ranges.add(new int[]{oldStart, snake[0], newStart, snake[1]});
+            ranges.add(new int[]{snake[2], oldEnd, snake[3], newEnd});
+        }
+    }
+
+    /**
+     * 查找最短编辑路径中间的一段对角线（可能长度为 0），结果保存在 snake 中：旧开始、新开始、旧结束、新结束位置。
+     * 调用前开头和结尾的数据都不相同
+     */
+    private static <T> void findMiddleSnake(List<T> oldList, List<T> newList, ItemCallback<T> callback,
+                                            int oldStart, int oldEnd, int newStart, int newEnd,
+                                            int[] forward, int[] backward, int offset, int[] snake) {
+        int oldSize = oldEnd - oldStart;
+        int newSize = newEnd - newStart;
+        int delta = oldSize - newSize;
+        boolean checkInForward = (delta & 1) != 0;
+        int maxD = (oldSize + newSize + 1) / 2;
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+        for (int d = 0; d <= maxD; d++) {
+            // 正向：x 为旧数据中的相对位置，对角线 k = x - y
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])) {
+                    x = forward[offset + k + 1];
+                } else {
+                    x = forward[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                int startX = x;
+                int startY = y;
+                while (x < oldSize && y < newSize
+                        && callback.areItemsTheSame(oldList.get(oldStart + x), newList.get(newStart + y))) {
+                    x++;
+                    y++;
+                }
+                forward[offset + k] = x;
+                int backwardK = delta - k;
+                if (checkInForward && backwardK >= -(d - 1) && backwardK <= d - 1
+                        && x + backward[offset + backwardK] >= oldSize) {
+                    snake[0] = oldStart + startX;
+                    snake[1] = newStart + startY;
+                    snake[2] = oldStart + x;
+                    snake[3] = newStart + y;
+                    return;
+                }
+            }
+            // 反向：u 为从旧数据末尾往前的相对位置，对角线 k = u - v
+            for (int k = -d; k <= d; k += 2) {
+                int u;
+                if (k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1])) {
+                    u = backward[offset + k + 1];
+                } else {
+                    u = backward[offset + k - 1] + 1;
+                }
+                int v = u - k;
+                int startU = u;
+                int startV = v;
+                while (u < oldSize && v < newSize
+                        && callback.areItemsTheSame(oldList.get(oldEnd - u - 1), newList.get(newEnd - v - 1))) {
+                    u++;
+                    v++;
+                }
+                backward[offset + k] = u;
+                int forwardK = delta - k;
+                if (!checkInForward && forwardK >= -d && forwardK <= d
+                        && u + forward[offset + forwardK] >= oldSize) {
+                    snake[0] = oldEnd - u;
+                    snake[1] = newEnd - v;
+                    snake[2] = oldEnd - startU;
+                    snake[3] = newEnd - startV;
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("FlowDiffUtil: no middle snake found, the ItemCallback must be consistent.");
+    }
+
+    /**
+     * 比较两项数据，在计算差异的线程中调用
+     */
+    public abstract static class ItemCallback<T> {
+        /**
+         * 是否是同一项数据（比如 id 相同），同一项数据保持原来的控件和测量结果
+         *
+         * @param oldItem 旧数据
+         * @param newItem 新数据
+         * @return true：同一项数据
+         */
+        public abstract boolean areItemsTheSame(T oldItem, T newItem);
+
+        /**
+         * 同一项数据的内容是否相同，不相同时会调用 {@link FlowLayoutAdapter#notifyItemRangeChanged(int, int)} 重新绑定和测量
+         *
+         * @param oldItem 旧数据
+         * @param newItem 新数据
+         * @return true：内容相同
+         */
+        public abstract boolean areContentsTheSame(T oldItem, T newItem);
+
+        /**
+         * 数据的 key，和 {@link #areItemsTheSame(Object, Object)} 一致：同一项数据的 key 相等（{@code equals()} 和 {@code hashCode()}），
+         * 不同数据的 key 不相等。检测移动时按 key 查找，不需要两两比较；默认返回 {@code null}，两两比较所有没有按顺序对应上的数据
+         *
+         * @param item 数据
+         * @return 数据的 key，返回 {@code null} 时两两比较
+         */
+        public Object getItemKey(T item) {
+            return null;
+        }
+    }
+
+    /**
+     * 差异计算结果，保存了依次需要通知的操作
+     */
+    public static final class DiffResult {
+        private final int[] mOps;
+        private final int mOldSize;
+
+        private DiffResult(int[] ops, int oldSize) {
+            this.mOps = ops;
+            this.mOldSize = oldSize;
+        }
+
+        /**
+         * 新旧数据是否有差异
+         */
+        public boolean hasChanges() {
+            return mOps.length > 0;
+        }
+
+        /**
+         * 依次通知适配器需要的改变，需要在主线程中、适配器的数据已经替换成新数据之后调用
+         *
+         * @param adapter 适配器
+         */
+        public void dispatchUpdatesTo(FlowLayoutAdapter adapter) {
+            int size = mOldSize;
+            for (int i = 0; i < mOps.length; i += 3) {
+                int op = mOps[i];
+                int position = mOps[i + 1];
+                int value = mOps[i + 2];
+                if (op == OP_REMOVE) {
+                    adapter.notifyItemRangeRemoved(position, value);
+                    size -= value;
+                } else if (op == OP_MOVE) {
+                    adapter.notifyItemMoved(position, value);
+                } else if (op == OP_INSERT) {
+                    if (position == size) {
+                        adapter.notifyItemsAppended(value);
+                    } else {
+                        adapter.notifyItemRangeInserted(position, value);
+                    }
+                    size += value;
+                } else {
+                    adapter.notifyItemRangeChanged(position, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * 依次保存操作（类型、位置、数量或者目标位置）的整型数组
+     */
+    private static final class IntList {
+        private int[] mValues = new int[24];
+        private int mSize;
+
+        void add(int op, int position, int value) {
+            if (mSize + 3 > mValues.length) {
+                mValues = Arrays.copyOf(mValues, mValues.length * 2);
+            }
+            mValues[mSize++] = op;
+            mValues[mSize++] = position;
+            mValues[mSize++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(mValues, mSize);
+        }
+    }
+}
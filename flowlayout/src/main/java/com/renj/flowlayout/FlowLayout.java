@@ -2,16 +2,25 @@ package com.renj.flowlayout;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Trace;
 import android.util.AttributeSet;
+import android.util.DisplayMetrics;
 import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.widget.Scroller;
+import android.view.ViewParent;
+import android.widget.OverScroller;
 
-import java.util.ArrayList;
-import java.util.List;
+import androidx.core.view.NestedScrollingChild3;
+import androidx.core.view.NestedScrollingChildHelper;
+import androidx.core.view.ViewCompat;
 
 /**
  * ======================================================================
@@ -20,29 +29,41 @@ import java.util.List;
  * <p>
  * 创建时间：2020-10-29   09:51
  * <p>
- * 描述：流式布局控件
+ * 描述：流式布局控件。<br/>
+ * 实现了 {@link NestedScrollingChild3}，放在 CoordinatorLayout、NestedScrollView 中时，
+ * 竖直方向的拖动和快速滑动先交给父控件处理（比如先折叠标题栏），剩下的距离自己滑动，滑到边界后剩下的再交还给父控件。
  * <p>
  * 修订历史：
  * <p>
  * ======================================================================
  */
-public class FlowLayout extends ViewGroup {
+public class FlowLayout extends ViewGroup implements NestedScrollingChild3 {
     /**
      * 居左对齐，默认
      */
-    public static final int HORIZONTAL_GRAVITY_LEFT = 0;
+    public static final int HORIZONTAL_GRAVITY_LEFT = FlowLineBreaker.GRAVITY_LEFT;
     /**
      * 居右对齐
      */
-    public static final int HORIZONTAL_GRAVITY_RIGHT = 1;
+    public static final int HORIZONTAL_GRAVITY_RIGHT = FlowLineBreaker.GRAVITY_RIGHT;
     /**
      * 左右对齐
      */
-    public static final int HORIZONTAL_GRAVITY_LEFT_RIGHT = 2;
+    public static final int HORIZONTAL_GRAVITY_LEFT_RIGHT = FlowLineBreaker.GRAVITY_LEFT_RIGHT;
     /**
      * 居中对齐
      */
-    public static final int HORIZONTAL_GRAVITY_CENTER = 3;
+    public static final int HORIZONTAL_GRAVITY_CENTER = FlowLineBreaker.GRAVITY_CENTER;
+
+    /**
+     * 点击分发方式：给每个子控件设置点击监听（所有子控件共用一个），由子控件处理点击，默认方式，子控件有按下状态
+     */
+    public static final int CLICK_DISPATCH_CHILD = 0;
+    /**
+     * 点击分发方式：子控件不设置点击监听，由 {@link FlowLayout} 自己处理点击，
+     * 按换行结果查找点击位置下的子控件（先二分查找所在行，再在行内查找），子控件没有按下状态
+     */
+    public static final int CLICK_DISPATCH_HIT_TEST = 1;
 
     private int mViewContentWidth; // 内容显示宽度
     private int mViewContentHeight; // 内容显示高度
@@ -50,25 +71,90 @@ public class FlowLayout extends ViewGroup {
     private int mHorizontalSpacing; // 水平方向间距
     private int mVerticalSpacing;   // 竖直方向间距
 
-    private int mShowChildViewCount; // 显示的子控件数
     private boolean mChildViewAllShow = true; // 子控件是否已经全部显示了
     private int mTotalShowRowCount; // 总显示行数
+    private int mTotalRowCountEstimate = -1; // 全部显示需要的行数估算值，-1 表示还没有计算
     private int mMaxRowCount = Integer.MAX_VALUE; // 最大显示行数
-    private List<RowChildViewInfo> mRowChildViewList = new ArrayList<>(); // 所有子控件行信息集合
+    private final FlowChildViewStore mChildViews = new FlowChildViewStore(); // 所有位置的子控件信息，索引和数据位置一致
+    private final FlowLineBreaker mLineBreaker = new FlowLineBreaker(); // 换行计算，保存所有行信息和子控件位置
+
+    private static final int NO_POSITION = -1;
+    // systrace 中的区块名称
+    private static final String TRACE_TAG_MEASURE = "FlowLayout#onMeasure";
+    private static final String TRACE_TAG_LAYOUT = "FlowLayout#onLayout";
+    private static final String TRACE_TAG_MEASURE_CHILD = "FlowLayout#measureChild";
+    private static final String TRACE_TAG_PREFETCH = "FlowLayout#prefetch";
+    // 快速滑动时预取按当前速度接下来这么多帧会滑过的距离内的行
+    private static final int PREFETCH_FRAME_COUNT = 2;
+    private static final int INVALID_POINTER = -1;
+    private boolean mFullLayoutRequired = true; // 是否需要完整布局
+    private int mFirstDirtyPosition = NO_POSITION; // 第一个改变的位置，从这个位置前一个子控件所在行开始重新换行
+    private int mDirtyEndPosition = NO_POSITION; // 改变的结束位置（不包括），之后的子控件没有改变，可以复用之前的换行结果
+    private int mAppendPosition = NO_POSITION; // 只在末尾追加了数据时追加的开始位置，重新打开最后一行继续添加
+    private boolean mLayoutPending; // 测量之后是否还没有布局，这时子控件本身就处于请求布局的状态
+    private SavedState mPendingSavedState; // 恢复的状态，下一次完整布局时使用
+
+    private boolean mVirtualizedEnabled; // 是否开启可见区域模式，只添加可见区域内的行
+    private boolean mVirtualizedActive; // 可见区域模式当前是否生效，只有高度确定时才生效
+    private int mVirtualizedExtraSpace; // 可见区域模式下，可见区域上下额外添加子控件的距离
+    private boolean mPrefetchEnabled = true; // 可见区域模式下，快速滑动时是否在空闲时间预取即将显示的行
+    private final FlowPrefetcher mPrefetcher = new FlowPrefetcher(this);
+    private FlowRowRenderer mRowRenderer; // 按行缓存绘制内容，没有开启或者系统版本低于 API 29 时为 null
+    private int mFirstAttachedRow; // 已添加子控件的第一行索引
+    private int mLastAttachedRow = -1; // 已添加子控件的最后一行索引
+    private int mLastWidthMeasureSpec; // 最近一次测量时的宽度规格
+    private int mLastHeightMeasureSpec; // 最近一次测量时的高度规格
+    private final FlowMeasureResultCache mMeasureResultCache = new FlowMeasureResultCache(); // 自身测量结果缓存，父控件用不同规格多次测量时使用
+    private boolean mRowsMeasureRequired; // 最后一次测量使用了缓存的尺寸，换行结果不是这次的规格计算的，布局前需要重新计算
+    private int mPendingWidthMeasureSpec; // 使用缓存的尺寸时的宽度规格
+    private int mPendingHeightMeasureSpec; // 使用缓存的尺寸时的高度规格
+    private int mChildMaxWidth; // 最近一次测量时子控件可用的最大宽度
+    private int mChildMaxHeight; // 最近一次测量时子控件可用的最大高度
+    private int mUniformItemWidth = -1; // 适配器声明了统一尺寸时子控件的宽度（已按最大可用宽度限制），不统一时为 -1
+    private int mUniformItemHeight = -1; // 适配器声明了统一尺寸时子控件的高度，不统一时为 -1
 
     private int mMaxScrollY; // 滑动时，最大滑动偏移量
-    private Scroller mScroller; // 支持滑动
+    private OverScroller mScroller; // 支持滑动
     private VelocityTracker mVelocityTracker; // ACTION_UP 时测速
+    private NestedScrollingChildHelper mScrollingChildHelper; // 嵌套滑动，不能在声明时初始化，见 getScrollingChildHelper()
+    private int mTouchSlop;
+    private int mMinimumFlingVelocity;
+    private int mMaximumFlingVelocity;
 
     // 每一行的水平方向对齐方式
     private int mHorizontalGravity = HORIZONTAL_GRAVITY_LEFT;
+    // 点击分发方式
+    private int mClickDispatchMode = CLICK_DISPATCH_CHILD;
 
     // 适配器对象
     private FlowLayoutAdapter mFlowLayoutAdapter;
+    // 绘制模式的适配器，不为 null 时不创建子控件，由 dispatchDraw() 直接绘制标签
+    private FlatTagFlowLayoutAdapter mFlatAdapter;
     // 子控件点击监听
     private OnItemClickListener mOnItemClickListener;
+    // 设置给所有子控件的点击监听，点击时根据子控件 LayoutParams 中的位置回调 mOnItemClickListener
+    private final OnClickListener mChildClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            if (mOnItemClickListener != null) {
+                int position = ((LayoutParams) v.getLayoutParams()).position;
+                mOnItemClickListener.onItemClick(FlowLayout.this, mFlowLayoutAdapter,
+                        mLineBreaker.getItemRow(position) + 1, position);
+            }
+        }
+    };
     // 子控件布局完成监听
     private OnChildLayoutFinishListener mOnChildLayoutFinishListener;
+    // 布局统计数据监听
+    private OnLayoutMetricsListener mOnLayoutMetricsListener;
+    // 当前布局过程的统计数据，每次 onLayout() 之后重置
+    private final FlowLayoutMetrics mLayoutMetrics = new FlowLayoutMetrics();
+    // 子控件复用管理
+    private final FlowRecycler mFlowRecycler = new FlowRecycler(this, mLayoutMetrics);
+    // 子控件测量结果缓存
+    private final FlowMeasureCache mMeasureCache = new FlowMeasureCache();
+    // 保存适配器预先计算好的子控件尺寸的临时数组
+    private final int[] mPrecomputedSize = new int[FlowMeasureCache.SIZE];
 
     public FlowLayout(Context context) {
         this(context, null);
@@ -89,14 +175,24 @@ public class FlowLayout extends ViewGroup {
     }
 
     private void init(Context context, AttributeSet attrs) {
-        mScroller = new Scroller(context);
-        mVelocityTracker = VelocityTracker.obtain();
+        // 系统内存不足时缩小共享的文字宽度缓存
+        FlowTextWidthCache.registerComponentCallbacks(context);
+        mScroller = new OverScroller(context);
+        ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
+        mTouchSlop = viewConfiguration.getScaledTouchSlop();
+        mMinimumFlingVelocity = viewConfiguration.getScaledMinimumFlingVelocity();
+        mMaximumFlingVelocity = viewConfiguration.getScaledMaximumFlingVelocity();
+        setNestedScrollingEnabled(true);
 
         TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.FlowLayout);
         mMaxRowCount = typedArray.getInteger(R.styleable.FlowLayout_flow_max_row_count, Integer.MAX_VALUE);
         mHorizontalGravity = typedArray.getInteger(R.styleable.FlowLayout_flow_horizontal_gravity, HORIZONTAL_GRAVITY_LEFT);
         mHorizontalSpacing = typedArray.getDimensionPixelSize(R.styleable.FlowLayout_flow_horizontal_spacing, 0);
         mVerticalSpacing = typedArray.getDimensionPixelSize(R.styleable.FlowLayout_flow_vertical_spacing, 0);
+        mVirtualizedEnabled = typedArray.getBoolean(R.styleable.FlowLayout_flow_virtualized, false);
+        mVirtualizedExtraSpace = typedArray.getDimensionPixelSize(R.styleable.FlowLayout_flow_virtualized_extra_space, 0);
+        mClickDispatchMode = typedArray.getInteger(R.styleable.FlowLayout_flow_click_dispatch_mode, CLICK_DISPATCH_CHILD);
+        setRenderNodeEnabled(typedArray.getBoolean(R.styleable.FlowLayout_flow_render_node_enabled, false));
         typedArray.recycle();
     }
 
@@ -107,9 +203,18 @@ public class FlowLayout extends ViewGroup {
      */
     public void setAdapter(FlowLayoutAdapter flowLayoutAdapter) {
         if (flowLayoutAdapter != null) {
+            if (this.mFlowLayoutAdapter != flowLayoutAdapter) {
+                // 更换了适配器，移除所有子控件放入复用池；没有共用复用池时之前的控件类型不再有效，不能复用
+                releaseAllChildViews();
+                mFlowRecycler.clear();
+                mMeasureCache.clear();
+            }
             this.mFlowLayoutAdapter = flowLayoutAdapter;
+            this.mFlatAdapter = flowLayoutAdapter instanceof FlatTagFlowLayoutAdapter
+                    ? (FlatTagFlowLayoutAdapter) flowLayoutAdapter : null;
             flowLayoutAdapter.setFlowLayout(this);
-            requestLayout();
+            mLayoutMetrics.addTrigger(FlowLayoutMetrics.TRIGGER_ADAPTER);
+            requestFullLayout();
         }
     }
 
@@ -138,6 +243,16 @@ public class FlowLayout extends ViewGroup {
         this.mOnChildLayoutFinishListener = null;
     }
 
+    /**
+     * 设置布局统计数据监听，每次布局（onLayout()）完成后回调本次布局过程的耗时、创建/测量子控件次数等，
+     * 不设置时不统计耗时
+     *
+     * @param onLayoutMetricsListener {@link OnLayoutMetricsListener}，{@code null} 时移除监听
+     */
+    public void setOnLayoutMetricsListener(OnLayoutMetricsListener onLayoutMetricsListener) {
+        this.mOnLayoutMetricsListener = onLayoutMetricsListener;
+    }
+
     /**
      * 设置子控件点击监听
      *
@@ -147,28 +262,106 @@ public class FlowLayout extends ViewGroup {
         this.mOnItemClickListener = onItemClickListener;
     }
 
+    /**
+     * 设置点击分发方式
+     *
+     * @param clickDispatchMode {@link #CLICK_DISPATCH_CHILD}：由子控件处理点击，默认 <br/>
+     *                          {@link #CLICK_DISPATCH_HIT_TEST}：由 {@link FlowLayout} 查找点击位置下的子控件，子控件不设置点击监听，
+     *                          子控件非常多并且经常重新布局时使用
+     */
+    public void setClickDispatchMode(int clickDispatchMode) {
+        if (this.mClickDispatchMode != clickDispatchMode) {
+            this.mClickDispatchMode = clickDispatchMode;
+            // 重新添加子控件时按新的方式设置点击监听
+            requestFullLayout();
+        }
+    }
+
+    /**
+     * 获取点击分发方式
+     *
+     * @return {@link #CLICK_DISPATCH_CHILD} 或者 {@link #CLICK_DISPATCH_HIT_TEST}
+     */
+    public int getClickDispatchMode() {
+        return mClickDispatchMode;
+    }
+
+    /**
+     * 获取指定坐标下的子控件位置，按换行结果查找，不需要子控件已经添加到父控件中
+     *
+     * @param x 相对于 {@link FlowLayout} 的水平坐标（不包括滑动偏移量）
+     * @param y 相对于 {@link FlowLayout} 的竖直坐标（不包括滑动偏移量）
+     * @return 子控件位置，坐标下没有子控件或者还没有完成布局时返回 -1
+     */
+    public int getItemPositionAt(float x, float y) {
+        if (mFlowLayoutAdapter == null || mFullLayoutRequired || mFirstDirtyPosition != NO_POSITION) return NO_POSITION;
+        return mLineBreaker.findItemAt(mHorizontalGravity, (int) x + getScrollX(), (int) y + getScrollY());
+    }
+
+    /**
+     * 设置指定类型子控件的最大复用数量，默认 {@link FlowRecycledViewPool#DEFAULT_MAX_RECYCLED_VIEWS}。
+     * 共用复用池时修改的是共用的复用池
+     *
+     * @param viewType 控件类型，{@link FlowLayoutAdapter#getItemViewType(int)} 方法的返回值
+     * @param max      最大复用数量
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+        mFlowRecycler.getRecycledViewPool().setMaxRecycledViews(viewType, max);
+    }
+
+    /**
+     * 设置子控件复用池，多个 {@link FlowLayout}（比如 RecyclerView 的每个列表项中一个）设置同一个复用池后，
+     * 一个 {@link FlowLayout} 更换适配器或者调用 {@link #recycleAllChildViews()} 时移除的子控件可以给其他 {@link FlowLayout} 使用。
+     * 所有适配器中同一个控件类型需要对应同一种控件，见 {@link FlowRecycledViewPool}
+     *
+     * @param recycledViewPool 共用的复用池，{@code null} 时恢复为单独使用的复用池
+     */
+    public void setRecycledViewPool(FlowRecycledViewPool recycledViewPool) {
+        mFlowRecycler.setRecycledViewPool(recycledViewPool);
+    }
+
+    /**
+     * 移除所有子控件并放入复用池，下次测量时重新绑定。<br/>
+     * 作为 RecyclerView 的列表项共用复用池时，在 RecyclerView.Adapter 的 onViewRecycled() 中调用，
+     * 列表项被回收时子控件就可以给下一个绑定的列表项使用，不需要等到更换适配器
+     */
+    public void recycleAllChildViews() {
+        mPrefetcher.cancel();
+        mFlowRecycler.clearPrefetchedViews();
+        if (mRowRenderer != null) {
+            mRowRenderer.releaseAll();
+        }
+        releaseAllChildViews();
+        requestFullLayout();
+    }
+
+    /**
+     * 获取子控件复用池，没有设置共用的复用池时返回单独使用的复用池，可以用于查看复用统计
+     */
+    public FlowRecycledViewPool getRecycledViewPool() {
+        return mFlowRecycler.getRecycledViewPool();
+    }
+
     /**
      * 设置最大显示行数
      *
      * @param maxRowCount 最大显示行数  小于0表示全部显示
      */
     public void setMaxRowCount(int maxRowCount) {
-        if ((maxRowCount == mMaxRowCount)
-                || (maxRowCount < 0 && mMaxRowCount < 0)
-                || (mChildViewAllShow && maxRowCount > mTotalShowRowCount)
-                || (mChildViewAllShow && maxRowCount < 0)) {
-            return;
-        }
-
         if (maxRowCount < 0) {
             maxRowCount = Integer.MAX_VALUE;
         }
+        // 所有子控件都已经显示时也需要保存，之后数据增加时最大行数仍然生效
+        if (maxRowCount == mMaxRowCount) return;
+
+        int oldMaxRowCount = this.mMaxRowCount;
         this.mMaxRowCount = maxRowCount;
         // 先滑动到顶部
         if (getScrollY() > 0) {
             scrollTo(0, 0);
         }
-        requestLayout();
+        // 两个最大行数中较小的行数之前的行不会改变，从这里继续换行，已经测量和添加的子控件都保留
+        requestRebreak(Math.min(oldMaxRowCount, maxRowCount));
     }
 
     /**
@@ -182,6 +375,8 @@ public class FlowLayout extends ViewGroup {
     public void setHorizontalGravity(int horizontalGravity) {
         if (this.mHorizontalGravity != horizontalGravity) {
             this.mHorizontalGravity = horizontalGravity;
+            // 对齐方式不影响换行，只需要在 onLayout() 中重新计算偏移量
+            mLayoutMetrics.addTrigger(FlowLayoutMetrics.TRIGGER_CONFIG);
             requestLayout();
         }
     }
@@ -200,7 +395,101 @@ public class FlowLayout extends ViewGroup {
         if (this.mHorizontalSpacing != horizontalSpacing || this.mVerticalSpacing != verticalSpacing) {
             this.mHorizontalSpacing = horizontalSpacing;
             this.mVerticalSpacing = verticalSpacing;
-            requestLayout();
+            // 间距不影响子控件尺寸，使用已经测量的尺寸重新换行
+            requestRebreak(0);
+        }
+    }
+
+    /**
+     * 设置是否开启可见区域模式。开启后只有与可见区域（加上额外距离）相交的行才会添加子控件，
+     * 滑动时再添加新进入可见区域的行、移除离开可见区域的行，适合子控件非常多并且高度固定可以滑动的情况。<br/>
+     * 注意：只有控件高度确定（测量模式为 EXACTLY）时才会生效，否则所有行都是可见的。
+     *
+     * @param virtualizedEnabled true：开启  false：关闭，默认关闭
+     */
+    public void setVirtualizedEnabled(boolean virtualizedEnabled) {
+        if (this.mVirtualizedEnabled != virtualizedEnabled) {
+            this.mVirtualizedEnabled = virtualizedEnabled;
+            requestFullLayout();
+        }
+    }
+
+    /**
+     * 是否开启了可见区域模式
+     *
+     * @return true：开启  false：关闭
+     */
+    public boolean isVirtualizedEnabled() {
+        return mVirtualizedEnabled;
+    }
+
+    /**
+     * 设置可见区域模式下快速滑动（fling）时是否预取，默认开启。<br/>
+     * 开启时每一帧绘制完成后，在下一帧开始之前的空闲时间里提前创建、绑定和测量滑动方向上即将进入可见区域的行，
+     * 预取的距离按当前滑动速度计算，进入可见区域时只需要添加到父控件中
+     *
+     * @param prefetchEnabled true：开启  false：关闭
+     */
+    public void setPrefetchEnabled(boolean prefetchEnabled) {
+        this.mPrefetchEnabled = prefetchEnabled;
+        if (!prefetchEnabled) {
+            mPrefetcher.cancel();
+            mFlowRecycler.clearPrefetchedViews();
+        }
+    }
+
+    /**
+     * 快速滑动时是否预取
+     *
+     * @return true：开启  false：关闭
+     */
+    public boolean isPrefetchEnabled() {
+        return mPrefetchEnabled;
+    }
+
+    /**
+     * 设置是否按行缓存绘制内容（API 29 及以上并且硬件加速时生效，低版本忽略），默认关闭。<br/>
+     * 开启后每一行的子控件录制到一个 {@link android.graphics.RenderNode} 中，滑动时只需要绘制各行缓存的内容，
+     * 子控件请求重绘或者重新布局后才重新录制对应的行，适合每一行子控件很多、滑动频繁的情况。<br/>
+     * 注意：开启后子控件的 elevation 只在同一行内排序，设置了 LayoutTransition 时不生效。
+     *
+     * @param renderNodeEnabled true：开启  false：关闭
+     */
+    public void setRenderNodeEnabled(boolean renderNodeEnabled) {
+        if (renderNodeEnabled == (mRowRenderer != null) || Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) return;
+
+        if (renderNodeEnabled) {
+            mRowRenderer = new FlowRowRenderer();
+        } else {
+            mRowRenderer.releaseAll();
+            mRowRenderer = null;
+        }
+        invalidate();
+    }
+
+    /**
+     * 是否按行缓存绘制内容
+     *
+     * @return true：开启（并且系统版本支持）  false：关闭
+     */
+    public boolean isRenderNodeEnabled() {
+        return mRowRenderer != null;
+    }
+
+    /**
+     * 设置可见区域模式下，可见区域上下额外添加子控件的距离，滑动时可以提前准备好即将显示的行
+     *
+     * @param extraSpace 额外距离 dp
+     */
+    public void setVirtualizedExtraSpace(int extraSpace) {
+        if (extraSpace < 0) return;
+
+        extraSpace = dip2px(getContext(), extraSpace);
+        if (this.mVirtualizedExtraSpace != extraSpace) {
+            this.mVirtualizedExtraSpace = extraSpace;
+            if (mVirtualizedActive) {
+                updateAttachedRows();
+            }
         }
     }
 
@@ -269,16 +558,75 @@ public class FlowLayout extends ViewGroup {
         } else if (rowNumber >= mTotalShowRowCount) {
             scrollToBottom(animation);
         } else {
-            int position = 0;
-            // 根据行数计算 position
-            for (RowChildViewInfo rowChildViewInfo : mRowChildViewList) {
-                position += rowChildViewInfo.rowHeight;
-                if (rowChildViewInfo.rowNumber == rowNumber) {
-                    break;
-                }
-            }
-            scrollToPosition(position, animation);
+            // 行的顶部位置已经包含了之前所有行的高度和竖直方向间距
+            scrollToPosition(mLineBreaker.getRowTop(rowNumber) - getPaddingTop(), animation);
+        }
+    }
+
+    /**
+     * 获取指定竖直坐标所在的行，二分查找。<br/>
+     * 坐标和子控件的 {@link View#getTop()} 使用同一坐标系（包含 paddingTop，不受滑动偏移量影响），
+     * 坐标在行间距中时返回上一行。需要在布局完成之后调用。
+     *
+     * @param y 竖直坐标
+     * @return 行索引，从 0 开始；坐标在第一行之前时返回 0，没有任何行时返回 -1
+     */
+    public int getRowAtY(int y) {
+        if (mLineBreaker.getRowCount() == 0) return FlowLineBreaker.NO_ROW;
+        return mLineBreaker.findRowForY(y);
+    }
+
+    /**
+     * 获取指定行的顶部位置，坐标系同 {@link #getRowAtY(int)}
+     *
+     * @param row 行索引，从 0 开始，需要小于 {@link #getShowRowCount()}
+     * @return 顶部位置
+     */
+    public int getRowTop(int row) {
+        return mLineBreaker.getRowTop(row);
+    }
+
+    /**
+     * 获取指定行的高度（不包括竖直方向间距）
+     *
+     * @param row 行索引，从 0 开始，需要小于 {@link #getShowRowCount()}
+     * @return 行高
+     */
+    public int getRowHeight(int row) {
+        return mLineBreaker.getRowHeight(row);
+    }
+
+    /**
+     * 获取当前滑动位置下第一个可见（与去掉 padding 的内容区域相交）的行，二分查找
+     *
+     * @return 行索引，从 0 开始，没有可见的行时返回 -1
+     */
+    public int getFirstVisibleRow() {
+        int visibleTop = getScrollY() + getPaddingTop();
+        int visibleBottom = getScrollY() + getHeight() - getPaddingBottom();
+        int row = mLineBreaker.findFirstRowBelow(visibleTop);
+        if (row >= mLineBreaker.getRowCount() || mLineBreaker.getRowTop(row) >= visibleBottom) {
+            return FlowLineBreaker.NO_ROW;
         }
+        return row;
+    }
+
+    /**
+     * 获取当前滑动位置下最后一个可见（与去掉 padding 的内容区域相交）的行，二分查找
+     *
+     * @return 行索引，从 0 开始，没有可见的行时返回 -1
+     */
+    public int getLastVisibleRow() {
+        int visibleTop = getScrollY() + getPaddingTop();
+        int visibleBottom = getScrollY() + getHeight() - getPaddingBottom();
+        if (mLineBreaker.getRowCount() == 0) return FlowLineBreaker.NO_ROW;
+
+        int row = mLineBreaker.findRowForY(visibleBottom - 1);
+        if (mLineBreaker.getRowTop(row) >= visibleBottom
+                || mLineBreaker.getRowTop(row) + mLineBreaker.getRowHeight(row) <= visibleTop) {
+            return FlowLineBreaker.NO_ROW;
+        }
+        return row;
     }
 
     /**
@@ -288,8 +636,10 @@ public class FlowLayout extends ViewGroup {
      * @param dy     移动距离
      */
     private void smallScrollToPosition(int startY, int dy) {
+        stopNestedScroll(ViewCompat.TYPE_NON_TOUCH);
         mScroller.startScroll(0, startY, 0, dy, Math.min(600, Math.max(300, Math.abs(dy))));
-        postInvalidate();
+        mLastScrollerY = startY;
+        postInvalidateOnAnimation();
     }
 
     /**
@@ -320,18 +670,158 @@ public class FlowLayout extends ViewGroup {
         return mChildViewAllShow;
     }
 
+    /**
+     * 获取没有显示的子控件数量（设置了最大行数时超出的部分），比如显示 "+N" 标记。<br/>
+     * <b>重点注意：不要直接调用，而要在 {@link #setOnChildLayoutFinishListener(OnChildLayoutFinishListener)}
+     * 回调中调用才能保证结果的正确性。</b>
+     *
+     * @return 没有显示的子控件数量，全部显示时返回 0
+     */
+    public int getHiddenItemCount() {
+        if (mFlowLayoutAdapter == null || !mLineBreaker.isRowLimitReached()) return 0;
+
+        int rowCount = mLineBreaker.getRowCount();
+        int shownEnd = rowCount == 0 ? 0 : mLineBreaker.getRowEnd(rowCount - 1);
+        return Math.max(0, mFlowLayoutAdapter.getItemCount() - shownEnd);
+    }
+
+    /**
+     * 获取全部显示需要的行数估算值（不受最大行数限制），不会创建和测量没有显示的子控件。<br/>
+     * 没有显示的子控件按 {@link FlowLayoutAdapter#getItemSizeHint(int, int)} 的宽度继续换行，
+     * 没有估算值时依次使用之前缓存的测量结果、预先计算的尺寸、已显示子控件的平均宽度。结果会缓存到下次布局。<br/>
+     * <b>重点注意：不要直接调用，而要在 {@link #setOnChildLayoutFinishListener(OnChildLayoutFinishListener)}
+     * 回调中调用才能保证结果的正确性。</b>
+     *
+     * @return 全部显示需要的行数，所有子控件都显示了时等于 {@link #getShowRowCount()}
+     */
+    public int getTotalRowCountEstimate() {
+        if (mTotalRowCountEstimate < 0) {
+            mTotalRowCountEstimate = mTotalShowRowCount + estimateHiddenRowCount();
+        }
+        return mTotalRowCountEstimate;
+    }
+
+    /**
+     * 按换行规则（和 {@link FlowLineBreaker#addItem(int, int, int, int, int, int, int)} 一样）估算没有显示的子控件需要的行数。
+     * 达到最大行数时，第一个没有显示的子控件就是放不进最后一行的那个，从新的一行开始
+     */
+    private int estimateHiddenRowCount() {
+        int hiddenItemCount = getHiddenItemCount();
+        if (hiddenItemCount == 0) return 0;
+
+        int uniformItemsPerRow = mLineBreaker.getUniformItemsPerRow();
+        if (uniformItemsPerRow > 0) {
+            return (hiddenItemCount + uniformItemsPerRow - 1) / uniformItemsPerRow;
+        }
+
+        int contentWidth = mLineBreaker.getContentWidth();
+        int averageWidth = getAverageItemWidth();
+        int rowCount = 0;
+        int rowWidth = 0;
+        int rowItemCount = 0;
+        int itemCount = mFlowLayoutAdapter.getItemCount();
+        for (int i = itemCount - hiddenItemCount; i < itemCount; i++) {
+            int width = getItemWidthHint(i, contentWidth, averageWidth);
+            if (width < 0) continue;
+
+            if (rowItemCount > 0 && rowWidth + mHorizontalSpacing + width > contentWidth) {
+                rowCount++;
+                rowWidth = 0;
+                rowItemCount = 0;
+            }
+            rowWidth += rowItemCount == 0 ? width : mHorizontalSpacing + width;
+            rowItemCount++;
+        }
+        return rowItemCount > 0 ? rowCount + 1 : rowCount;
+    }
+
+    /**
+     * 没有显示的子控件的宽度（包括左右外边距）：估算值 -> 缓存的测量结果 -> 预先计算的尺寸 -> 平均宽度
+     *
+     * @return 宽度，不占位置（{@code View.GONE}）时返回 -1
+     */
+    private int getItemWidthHint(int position, int contentWidth, int averageWidth) {
+        int width = mFlowLayoutAdapter.getItemSizeHint(position, contentWidth);
+        if (width >= 0) return width;
+
+        int[] itemSize = mMeasureCache.get(mFlowLayoutAdapter.getItemId(position));
+        if (itemSize == null && mFlowLayoutAdapter.getPrecomputedSize(position, mChildMaxWidth, mChildMaxHeight, mPrecomputedSize)) {
+            itemSize = mPrecomputedSize;
+        }
+        if (itemSize == null) return averageWidth;
+        if (itemSize[FlowMeasureCache.GONE] != 0) return -1;
+
+        return itemSize[FlowMeasureCache.WIDTH] + itemSize[FlowMeasureCache.LEFT_MARGIN] + itemSize[FlowMeasureCache.RIGHT_MARGIN];
+    }
+
+    /**
+     * 已显示子控件的平均宽度（包括左右外边距）
+     */
+    private int getAverageItemWidth() {
+        int totalWidth = 0;
+        int totalItemCount = 0;
+        for (int row = 0, rowCount = mLineBreaker.getRowCount(); row < rowCount; row++) {
+            int rowItemCount = mLineBreaker.getRowItemCount(row);
+            totalWidth += mLineBreaker.getRowUsedWidth(row) - (rowItemCount - 1) * mHorizontalSpacing;
+            totalItemCount += rowItemCount;
+        }
+        return totalItemCount == 0 ? 0 : totalWidth / totalItemCount;
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        removeAllViews();
-        mRowChildViewList.clear();
-        mShowChildViewCount = 0;
-        mTotalShowRowCount = 0;
+        int cacheIndex = mMeasureResultCache.indexOf(widthMeasureSpec, heightMeasureSpec);
+        if (cacheIndex >= 0 && !mFullLayoutRequired && mFirstDirtyPosition == NO_POSITION) {
+            // 这个规格在这次布局中已经测量过了，直接使用缓存的尺寸；
+            // 换行结果是其他规格计算的时，等到布局前确定了最终的规格再重新计算
+            setMeasuredDimension(mMeasureResultCache.getMeasuredWidthAndState(cacheIndex),
+                    mMeasureResultCache.getMeasuredHeightAndState(cacheIndex));
+            mRowsMeasureRequired = widthMeasureSpec != mLastWidthMeasureSpec || heightMeasureSpec != mLastHeightMeasureSpec;
+            mPendingWidthMeasureSpec = widthMeasureSpec;
+            mPendingHeightMeasureSpec = heightMeasureSpec;
+            mLayoutMetrics.onMeasureCacheHit();
+            return;
+        }
+
+        Trace.beginSection(TRACE_TAG_MEASURE);
+        long startTime = mOnLayoutMetricsListener != null ? System.nanoTime() : 0;
+        try {
+            boolean fullLayout = measureRows(widthMeasureSpec, heightMeasureSpec);
+            mRowsMeasureRequired = false;
+            mMeasureResultCache.put(widthMeasureSpec, heightMeasureSpec, getMeasuredWidthAndState(), getMeasuredHeightAndState());
+            long measureTime = mOnLayoutMetricsListener != null ? System.nanoTime() - startTime : 0;
+            mLayoutMetrics.onMeasureFinished(fullLayout, measureTime);
+        } finally {
+            Trace.endSection();
+        }
+    }
 
+    @Override
+    public void requestLayout() {
+        // 数据、属性、padding 改变或者子控件请求重新布局都会调用，之前缓存的测量结果不再有效。
+        // 父类构造方法中也可能调用，这时还没有初始化
+        if (mMeasureResultCache != null) {
+            mMeasureResultCache.clear();
+        }
+        super.requestLayout();
+    }
+
+    /**
+     * 测量所有子控件并换行，确定自身尺寸
+     *
+     * @return 是否进行了完整布局
+     */
+    private boolean measureRows(int widthMeasureSpec, int heightMeasureSpec) {
+        mLastWidthMeasureSpec = widthMeasureSpec;
+        mLastHeightMeasureSpec = heightMeasureSpec;
         int widthSize = MeasureSpec.getSize(widthMeasureSpec);
         int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         int heightSize = MeasureSpec.getSize(heightMeasureSpec);
 
         if (mFlowLayoutAdapter == null || mMaxRowCount == 0) {
+            // 移除所有子控件，下次需要完整布局
+            releaseAllChildViews();
+            mFullLayoutRequired = true;
             // 确定高度
             if (heightMode == MeasureSpec.EXACTLY) {
                 heightMeasureSpec = MeasureSpec.makeMeasureSpec(heightSize, MeasureSpec.EXACTLY);
@@ -339,115 +829,128 @@ public class FlowLayout extends ViewGroup {
                 heightMeasureSpec = MeasureSpec.makeMeasureSpec(getPaddingTop() + getPaddingBottom(), MeasureSpec.EXACTLY);
             }
             super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-            return;
+            return true;
         }
+
         // 内容显示宽度和高度
         mViewContentWidth = widthSize - getPaddingLeft() - getPaddingRight();
         mViewContentHeight = heightSize - getPaddingTop() - getPaddingBottom();
 
-        // 所有孩子控件都完全显示需要的高度，默认加上顶部的 padding 值
-        int flowLayoutReallyHeight = getPaddingTop();
-        int childCount = mFlowLayoutAdapter.getItemCount();
-        if (childCount > 0) {
-            // 当前行已使用的宽度
-            int currentRowWidth = 0;
-            // 当前子控件所需要的水平方向间距，因为间距数 = 水平方向一行子控件个数 - 1（最后一个没有间距）
-            // 本来是每行除最后一个之外，每个后面有间距；这里转换一下，变成除了第一个之外，后面每个在前面加一个间距
-            int currentHorizontalSpacing = 0;
-            // 当前行的高度，以一行中最大高度的子控件高度为行高
-            int currentRowMaxHeight = 0;
-            // 总行数
-            mTotalShowRowCount = 1;
-            // 显示的子控件数
-            mShowChildViewCount = 0;
-
-            List<ChildViewInfo> mChildViewList = new ArrayList<>();
-            for (int i = 0; i < childCount; i++) {
-                View childView = mFlowLayoutAdapter.createView(getContext(), this, i);
-                if (childView.getVisibility() == View.GONE) {
-                    continue;
-                }
-
-                addView(childView);
-
-                measureChild(childView, widthMeasureSpec, heightMeasureSpec);
-
-                MarginLayoutParams marginLayoutParams = (MarginLayoutParams) childView.getLayoutParams();
-                int childViewLeftMargin = 0;
-                int childViewTopMargin = 0;
-                int childViewRightMargin = 0;
-                int childViewBottomMargin = 0;
-                if (marginLayoutParams != null) {
-                    childViewLeftMargin = marginLayoutParams.leftMargin;
-                    childViewTopMargin = marginLayoutParams.topMargin;
-                    childViewRightMargin = marginLayoutParams.rightMargin;
-                    childViewBottomMargin = marginLayoutParams.bottomMargin;
+        boolean virtualizedActive = mVirtualizedEnabled && heightMode == MeasureSpec.EXACTLY;
+        // 是否需要完整布局：数据整体改变、数据数量和保存的不一致或者可见区域模式改变
+        boolean fullLayout = mFullLayoutRequired
+                || virtualizedActive != mVirtualizedActive
+                || mChildViews.getItemCount() != mFlowLayoutAdapter.getItemCount();
+        int childMaxWidth = getChildMaxSize(widthMeasureSpec, getPaddingLeft() + getPaddingRight());
+        int childMaxHeight = getChildMaxSize(heightMeasureSpec, getPaddingTop() + getPaddingBottom());
+        // 宽度和高度都固定时按算术换行，是否使用这种方式改变了需要完整布局
+        int fixedWidth = mFlowLayoutAdapter.getFixedItemWidth();
+        int fixedHeight = mFlowLayoutAdapter.getFixedItemHeight();
+        int uniformWidth = fixedWidth >= 0 && fixedHeight >= 0 ? Math.min(fixedWidth, childMaxWidth) : -1;
+        int uniformHeight = uniformWidth >= 0 ? Math.min(fixedHeight, childMaxHeight) : -1;
+        boolean uniformSizeChanged = uniformWidth != mUniformItemWidth || uniformHeight != mUniformItemHeight;
+        fullLayout |= (uniformWidth >= 0) != (mUniformItemWidth >= 0);
+        if (!fullLayout) {
+            // 父控件尺寸或者 padding 改变了，不需要完整布局：只重新测量可能受到尺寸限制的子控件，使用已经测量的尺寸重新换行
+            if (childMaxWidth != mChildMaxWidth || childMaxHeight != mChildMaxHeight) {
+                invalidateConstrainedMeasures(Math.min(childMaxWidth, mChildMaxWidth), Math.min(childMaxHeight, mChildMaxHeight));
+            }
+            if (childMaxWidth != mChildMaxWidth || childMaxHeight != mChildMaxHeight
+                    || mViewContentWidth != mLineBreaker.getContentWidth()
+                    || getPaddingLeft() != mLineBreaker.getOriginX()
+                    || getPaddingTop() != mLineBreaker.getOriginY()) {
+                markDirty(0, mChildViews.getItemCount());
+            }
+        }
+        mChildMaxWidth = childMaxWidth;
+        mChildMaxHeight = childMaxHeight;
+        mUniformItemWidth = uniformWidth;
+        mUniformItemHeight = uniformHeight;
+        mVirtualizedActive = virtualizedActive;
+
+        // 宽度规格改变时，缓存的测量结果全部失效
+        mMeasureCache.checkWidthMeasureSpec(widthMeasureSpec);
+        mLineBreaker.setContentWidth(mViewContentWidth);
+        mLineBreaker.setSpacing(mHorizontalSpacing, mVerticalSpacing);
+        mLineBreaker.setMaxRowCount(mMaxRowCount);
+        mLineBreaker.setOrigin(getPaddingLeft(), getPaddingTop());
+
+        if (mUniformItemWidth >= 0) {
+            measureUniformRows(fullLayout, uniformSizeChanged);
+        } else if (fullLayout) {
+            // 不直接移除所有子控件，而是先分离放到临时缓存中，重新布局时同一位置的控件直接重新绑定数据
+            scrapAllChildViews();
+            resetChildViews();
+            mFirstAttachedRow = 0;
+            mLastAttachedRow = -1;
+            // 恢复状态后第一次布局，条件一致时使用保存的测量尺寸换行，不需要绑定和测量子控件
+            FlowLayoutSnapshot snapshot = obtainRestoredSnapshot();
+            if (snapshot != null) {
+                snapshot.restoreMeasuredSizes(mChildViews);
+            }
+            breakRows(0, Integer.MAX_VALUE);
+            if (snapshot != null && !snapshot.matchesRows(mLineBreaker)) {
+                // 换行结果和保存时不一致（比如子控件的样式改变了），放弃快照重新测量
+                scrapAllChildViews();
+                resetChildViews();
+                breakRows(0, Integer.MAX_VALUE);
+            }
+            // 没有再使用的控件放入复用池
+            recycleScrapViews();
+        } else {
+            // 子控件自己请求了重新布局（比如内容改变了），需要重新测量。
+            // 测量之后还没有布局时（父控件多次测量），子控件本身就处于请求布局的状态，不需要检查
+            if (!mLayoutPending) {
+                checkChildLayoutRequested();
+            }
+            if (mFirstDirtyPosition != NO_POSITION) {
+                int oldRowCount = mLineBreaker.getRowCount();
+                int oldFirstAttachedRow = mFirstAttachedRow;
+                int oldLastAttachedRow = mLastAttachedRow;
+                if (mFirstDirtyPosition == mAppendPosition) {
+                    // 只在末尾追加了数据，重新打开最后一行，只测量和添加追加的子控件
+                    appendRows();
+                } else {
+                    // 只从第一个改变的子控件前一个子控件所在行开始重新换行，之前的行保持不变，
+                    // 改变的结束位置之后的子控件如果换行结果和之前一样，直接复用之前的行
+                    breakRows(mLineBreaker.findRowForPosition(mFirstDirtyPosition - 1), mDirtyEndPosition);
                 }
-
-                int childViewWidth = childView.getMeasuredWidth();
-                int childViewHeight = childView.getMeasuredHeight();
-                // 计算当前行已使用的宽度
-                currentRowWidth += childViewWidth + childViewLeftMargin + childViewRightMargin + currentHorizontalSpacing;
-                // 取一行最大高度为行高
-                currentRowMaxHeight = Math.max(childViewHeight + childViewTopMargin + childViewBottomMargin, currentRowMaxHeight);
-                // 换行
-                if (currentRowWidth > mViewContentWidth) {
-                    // 增加上一行高度
-                    flowLayoutReallyHeight += currentRowMaxHeight;
-                    // 组合成新的行对象信息
-                    RowChildViewInfo rowChildViewInfo = new RowChildViewInfo();
-                    rowChildViewInfo.rowChildViews = mChildViewList;
-                    rowChildViewInfo.rowNumber = mTotalShowRowCount;
-                    rowChildViewInfo.rowHeight = currentRowMaxHeight;
-                    rowChildViewInfo.currentRowUsedWidth = currentRowWidth - (childViewWidth + childViewLeftMargin + childViewRightMargin + currentHorizontalSpacing);
-                    mRowChildViewList.add(rowChildViewInfo);
-
-                    // 换行时设置为0，因为间距数 = 水平方向一行子控件个数 - 1 （最后一个没有间距）
-                    // 本来是每行除最后一个之外，每个后面有间距；这里转换一下，变成除了第一个之外，后面每个在前面加一个间距
-                    currentHorizontalSpacing = 0;
-                    // 计算新行已使用宽度
-                    currentRowWidth = childViewWidth + childViewLeftMargin + childViewRightMargin + currentHorizontalSpacing;
-                    // 新行高度
-                    currentRowMaxHeight = childViewHeight + childViewTopMargin + childViewBottomMargin;
-                    // 新行子控件集合
-                    mChildViewList = new ArrayList<>();
-                    // 总行数加1
-                    mTotalShowRowCount += 1;
-                    // 显示最大行数控制
-                    if (mTotalShowRowCount > mMaxRowCount) {
-                        // 超过最大行数的部分，减掉
-                        mTotalShowRowCount -= 1;
-                        currentRowMaxHeight = 0;
-                        break;
-                    }
-
-                    // 增加竖直方向上的间距
-                    flowLayoutReallyHeight += mVerticalSpacing;
+                if (mVirtualizedActive) {
+                    // 复用的旧行行号可能前移或后移了，之前添加了子控件的行（按行号变化扩大范围）和当前可见的行都需要同步
+                    int rowCountDelta = mLineBreaker.getRowCount() - oldRowCount;
+                    syncAttachedRows(oldFirstAttachedRow + Math.min(0, rowCountDelta),
+                            oldLastAttachedRow + Math.max(0, rowCountDelta), true);
                 }
-
-                // 确定当前子控件所在的位置
-                ChildViewInfo childViewInfo = new ChildViewInfo(childView, mTotalShowRowCount, i);
-                childViewInfo.right = currentRowWidth - childViewRightMargin + getPaddingLeft();
-                childViewInfo.left = childViewInfo.right - childViewWidth;
-                childViewInfo.top = flowLayoutReallyHeight + childViewTopMargin;
-                childViewInfo.bottom = childViewInfo.top + childViewHeight;
-                mChildViewList.add(childViewInfo);
-                mShowChildViewCount += 1;
-                // 除了每行的第一个，后面的子控件都在前边加上一个水平间距
-                currentHorizontalSpacing = mHorizontalSpacing;
-            }
-            // 加上最后一行高度
-            flowLayoutReallyHeight += currentRowMaxHeight;
-            // 加上最后一行的行对象信息
-            RowChildViewInfo rowChildViewInfo = new RowChildViewInfo();
-            rowChildViewInfo.rowChildViews = mChildViewList;
-            rowChildViewInfo.rowNumber = mTotalShowRowCount;
-            rowChildViewInfo.rowHeight = currentRowMaxHeight;
-            rowChildViewInfo.currentRowUsedWidth = currentRowWidth;
-            mRowChildViewList.add(rowChildViewInfo);
-        }
-        // 加上底部 padding 值
-        flowLayoutReallyHeight += getPaddingBottom();
+            } else if (mVirtualizedActive) {
+                // 控件高度可能改变了，可见区域随之改变
+                syncAttachedRows(mFirstAttachedRow, mLastAttachedRow, false);
+            }
+        }
+        if (fullLayout && mPendingSavedState != null && mFlowLayoutAdapter.getItemCount() > 0) {
+            // 恢复滑动位置，需要在同步可见区域之前
+            int maxScrollY = mLineBreaker.getContentBottom() - getPaddingTop() - mViewContentHeight;
+            scrollTo(0, Math.max(0, Math.min(mPendingSavedState.scrollY, maxScrollY)));
+            mPendingSavedState = null;
+        }
+        if (!mVirtualizedActive) {
+            mFirstAttachedRow = 0;
+            mLastAttachedRow = mLineBreaker.getRowCount() - 1;
+        } else if (fullLayout) {
+            syncAttachedRows(0, -1, true);
+        }
+        // 移除已经不在数据中的 id 的缓存，避免缓存一直增长：完整布局之后超过数据数量就清理；
+        // 移除数据时不能再获取被移除的 id，增量布局之后超过数据数量的两倍时清理
+        int itemCount = mFlowLayoutAdapter.getItemCount();
+        mMeasureCache.prune(mFlowLayoutAdapter, fullLayout ? itemCount : itemCount * 2);
+        mFullLayoutRequired = false;
+        mFirstDirtyPosition = NO_POSITION;
+        mDirtyEndPosition = NO_POSITION;
+        mAppendPosition = NO_POSITION;
+        mTotalShowRowCount = mLineBreaker.getRowCount();
+        mLayoutPending = true;
+
+        // 所有孩子控件都完全显示需要的高度，加上顶部和底部的 padding 值
+        int flowLayoutReallyHeight = mLineBreaker.getContentBottom() + getPaddingBottom();
         mViewReallyHeight = flowLayoutReallyHeight;
 
         // 确定高度
@@ -460,218 +963,1464 @@ public class FlowLayout extends ViewGroup {
         // 滑动时，最大滑动偏移量
         mMaxScrollY = mViewReallyHeight - mViewContentHeight - getPaddingBottom() - getPaddingTop();
         setMeasuredDimension(widthMeasureSpec, heightMeasureSpec);
+        return fullLayout;
     }
 
-    @Override
-    protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        // 确定子控件是否已经全部显示了
-        mChildViewAllShow = mFlowLayoutAdapter == null ? true : mFlowLayoutAdapter.getItemCount() == mShowChildViewCount;
-        if (mRowChildViewList.isEmpty()) {
-            if (mOnChildLayoutFinishListener != null)
-                mOnChildLayoutFinishListener.onLayoutFinish(this, mShowChildViewCount);
+    /**
+     * 子控件尺寸统一时的测量：由 {@link FlowLineBreaker#breakUniform(int, int)} 直接按算术计算换行结果（O(行数)），
+     * 不需要逐个测量子控件，只有需要显示的行才绑定子控件并以统一尺寸测量
+     *
+     * @param fullLayout  是否完整布局
+     * @param sizeChanged 统一尺寸是否改变了，已添加的子控件需要重新测量
+     */
+    private void measureUniformRows(boolean fullLayout, boolean sizeChanged) {
+        if (fullLayout) {
+            scrapAllChildViews();
+            resetChildViews();
+            mFirstAttachedRow = 0;
+            mLastAttachedRow = -1;
+            mLineBreaker.breakUniform(mUniformItemWidth, mUniformItemHeight);
+            // 可见区域模式下之后统一同步可见的行
+            if (!mVirtualizedActive) {
+                attachUniformRows(0, mLineBreaker.getRowCount() - 1);
+            }
+            recycleScrapViews();
             return;
         }
 
-        // 水平方向不同对齐方式偏移量，默认居左对齐，不偏移
-        int offsetX = 0;
-        for (final RowChildViewInfo rowChildViewInfo : mRowChildViewList) {
-            List<ChildViewInfo> rowChildViews = rowChildViewInfo.rowChildViews;
-            if (mHorizontalGravity == HORIZONTAL_GRAVITY_RIGHT) {
-                // 居右对齐
-                offsetX = mViewContentWidth - rowChildViewInfo.currentRowUsedWidth;
-            } else if (mHorizontalGravity == HORIZONTAL_GRAVITY_LEFT_RIGHT) {
-                // 左右两端对齐
-                if (rowChildViews.size() > 1) {
-                    offsetX = (mViewContentWidth - rowChildViewInfo.currentRowUsedWidth) / (rowChildViews.size() - 1);
-                } else {
-                    offsetX = 0;
-                }
-            } else if (mHorizontalGravity == HORIZONTAL_GRAVITY_CENTER) {
-                // 居中对齐
-                offsetX = (mViewContentWidth - rowChildViewInfo.currentRowUsedWidth) / 2;
+        // 尺寸改变了或者子控件自己请求了重新布局，以统一尺寸重新测量即可，不影响换行
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+            View childView = getChildAt(i);
+            if (sizeChanged || childView.isLayoutRequested()) {
+                childView.measure(MeasureSpec.makeMeasureSpec(mUniformItemWidth, MeasureSpec.EXACTLY),
+                        MeasureSpec.makeMeasureSpec(mUniformItemHeight, MeasureSpec.EXACTLY));
+            }
+        }
+        if (mFirstDirtyPosition != NO_POSITION) {
+            // 之前添加了子控件的位置范围（数据改变时已经随之移动，移动数据时子控件可能移动到改变的范围内），
+            // 重新计算后这些位置所在的行都需要同步。删除数据时旧行的范围会被截断，所以直接按已添加的子控件计算
+            int firstDirtyPosition = mFirstDirtyPosition;
+            int attachedStart = firstDirtyPosition;
+            int attachedEnd = Math.min(mDirtyEndPosition, mChildViews.getItemCount());
+            for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+                int position = ((LayoutParams) getChildAt(i).getLayoutParams()).position;
+                attachedStart = Math.min(attachedStart, position);
+                attachedEnd = Math.max(attachedEnd, position + 1);
             }
 
-            for (int i = 0; i < rowChildViews.size(); i++) {
-                final ChildViewInfo childViewInfo = rowChildViews.get(i);
-                if (mHorizontalGravity == HORIZONTAL_GRAVITY_LEFT_RIGHT) {
-                    // 左右两端对齐，需要特殊处理
-                    childViewInfo.onLayout(offsetX * i);
-                } else {
-                    childViewInfo.onLayout(offsetX);
-                }
-                childViewInfo.addClickListener(mOnItemClickListener, this, mFlowLayoutAdapter);
+            mLineBreaker.breakUniform(mUniformItemWidth, mUniformItemHeight);
+            // 超过最大行数的子控件不显示
+            recycleChildViewsFrom(mLineBreaker.getPlacedItemCount());
+            int dirtyRow = mLineBreaker.findRowForPosition(firstDirtyPosition);
+            if (!mVirtualizedActive) {
+                attachUniformRows(dirtyRow, mLineBreaker.getRowCount() - 1);
+            } else if (attachedEnd > attachedStart) {
+                // 改变的位置之后已有的子控件位置可能改变了，先更新这些行，再同步可见的行
+                int fromRow = mLineBreaker.findRowForPosition(attachedStart);
+                int toRow = mLineBreaker.findRowForPosition(attachedEnd - 1);
+                attachUniformRows(Math.max(fromRow, dirtyRow), toRow);
+                syncAttachedRows(fromRow, toRow, true);
+            } else {
+                syncAttachedRows(0, -1, true);
             }
+        } else if (mVirtualizedActive) {
+            // 控件高度可能改变了，可见区域随之改变
+            syncAttachedRows(mFirstAttachedRow, mLastAttachedRow, false);
         }
-        if (mOnChildLayoutFinishListener != null)
-            mOnChildLayoutFinishListener.onLayoutFinish(this, mShowChildViewCount);
     }
 
-    private float mInterceptDownX;
-    // 获取TouchSlop值
-    float mTouchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
-
-    @Override
-    public boolean onInterceptTouchEvent(MotionEvent ev) {
-        switch (ev.getAction()) {
-            case MotionEvent.ACTION_DOWN:
-                mInterceptDownX = ev.getRawX();
-                break;
-            case MotionEvent.ACTION_MOVE:
-                float mXMove = ev.getRawX();
-                float diff = Math.abs(mXMove - mInterceptDownX);
-                // 当手指拖动值大于TouchSlop值时，认为应该进行滚动，拦截子控件的事件
-                if (diff > mTouchSlop) {
-                    return true;
-                }
-                break;
+    /**
+     * 子控件尺寸统一时，按新的换行结果处理指定范围内的行：需要显示的行绑定子控件并添加到父控件中，
+     * 可见区域模式下不在可见区域内的行移除子控件
+     */
+    private void attachUniformRows(int fromRow, int toRow) {
+        for (int row = fromRow; row <= toRow; row++) {
+            onRowMeasured(row);
         }
-        return super.onInterceptTouchEvent(ev);
     }
 
-    private int mTouchEventLastY;
-
-    @Override
-    public boolean onTouchEvent(MotionEvent event) {
-        if (mViewReallyHeight > mViewContentHeight + getPaddingTop() + getPaddingBottom()) {
-            if (mVelocityTracker == null) {
-                mVelocityTracker = VelocityTracker.obtain();
-            }
-            mVelocityTracker.addMovement(event);
-            int y = (int) event.getY();
-            switch (event.getAction()) {
-                case MotionEvent.ACTION_DOWN:
-                    mTouchEventLastY = y;
-                    break;
-                case MotionEvent.ACTION_MOVE:
-                    if (!mScroller.isFinished()) {
-                        mScroller.abortAnimation();
-                    }
-                    int dy = mTouchEventLastY - y;
-                    // 向上滑动
-                    if (dy < 0) {
-                        if (getScrollY() == 0) {
-                            return super.onTouchEvent(event);
-                        }
-                        if (getScrollY() + dy < 0) {
-                            scrollTo(0, 0);
-                            return true;
-                        }
-                    } else {
-                        // 向下滑动
-                        if (getScrollY() == mMaxScrollY) {
-                            return super.onTouchEvent(event);
-                        }
-                        if (getScrollY() + dy > mMaxScrollY) {
-                            scrollTo(0, mMaxScrollY);
-                            return true;
-                        }
-                    }
-                    scrollBy(0, dy);
-                    mTouchEventLastY = y;
-                    break;
-                case MotionEvent.ACTION_UP:
-                    mVelocityTracker.computeCurrentVelocity(1000);
-                    int initialVelocity = (int) mVelocityTracker.getYVelocity();
-                    if (Math.abs(initialVelocity) > 200) {
-                        // 由于坐标轴正方向问题，要加负号。
-                        mScroller.fling(0, getScrollY(), 0, -initialVelocity, 0, 0, 0, 10000);
-                    }
-
-                    if (mVelocityTracker != null) {
-                        mVelocityTracker.clear();
-                        mVelocityTracker.recycle();
-                        mVelocityTracker = null;
-                    }
-                    break;
-            }
-            postInvalidate();
-            return true;
-        } else {
-            return super.onTouchEvent(event);
+    /**
+     * 取出恢复的布局快照，计算条件和数据集和保存时一致才返回，只使用一次
+     */
+    private FlowLayoutSnapshot obtainRestoredSnapshot() {
+        if (mPendingSavedState == null || mPendingSavedState.snapshot == null) return null;
+
+        FlowLayoutSnapshot snapshot = mPendingSavedState.snapshot;
+        mPendingSavedState.snapshot = null;
+        int itemCount = mFlowLayoutAdapter.getItemCount();
+        if (itemCount == 0 || !snapshot.matches(getSnapshotConditions(), itemCount, computeItemSetHash())) {
+            return null;
         }
+        return snapshot;
     }
 
-    @Override
-    public void computeScroll() {
-        if (mScroller.computeScrollOffset()) {
-            int currY = mScroller.getCurrY();
-            // 快速滑动边界判断
-            if (currY > mMaxScrollY) {
-                currY = mMaxScrollY;
-                scrollTo(0, currY);
-                mScroller.abortAnimation();
+    /**
+     * 影响测量和换行结果的条件：内容宽度、子控件可用的最大尺寸、间距、最大行数和屏幕密度（字体缩放也会改变密度）
+     */
+    private int[] getSnapshotConditions() {
+        DisplayMetrics displayMetrics = getResources().getDisplayMetrics();
+        return new int[]{mViewContentWidth, mChildMaxWidth, mChildMaxHeight, mHorizontalSpacing, mVerticalSpacing,
+                mMaxRowCount, Float.floatToIntBits(displayMetrics.density), Float.floatToIntBits(displayMetrics.scaledDensity)};
+    }
+
+    /**
+     * 数据集 hash：数量、控件类型、稳定 id 和数据的 hashCode()，数据没有实现 hashCode() 时重建后必然不一致，不使用快照
+     */
+    private long computeItemSetHash() {
+        int itemCount = mFlowLayoutAdapter.getItemCount();
+        boolean hasStableIds = mFlowLayoutAdapter.hasStableIds();
+        long hash = itemCount;
+        for (int i = 0; i < itemCount; i++) {
+            hash = 31 * hash + mFlowLayoutAdapter.getItemViewType(i);
+            if (hasStableIds) {
+                hash = 31 * hash + mFlowLayoutAdapter.getItemId(i);
             }
-            scrollTo(0, currY);
-            postInvalidate();
+            Object item = mFlowLayoutAdapter.getItem(i);
+            hash = 31 * hash + (item == null ? 0 : item.hashCode());
         }
+        return hash;
     }
 
-    @Override
-    public LayoutParams generateLayoutParams(AttributeSet attrs) {
-        return new MarginLayoutParams(getContext(), attrs);
+    /**
+     * 完整布局时，重置所有位置的子控件信息（复用之前的数组）
+     */
+    private void resetChildViews() {
+        int itemCount = mFlowLayoutAdapter.getItemCount();
+        mChildViews.setItemCount(itemCount);
+        mLineBreaker.setItemCount(itemCount);
     }
 
-    @Override
-    protected LayoutParams generateDefaultLayoutParams() {
-        return new MarginLayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    /**
+     * 从指定行开始重新换行，之前的行保持不变，换行计算由 {@link FlowLineBreaker} 完成，这里只负责测量子控件。<br/>
+     * 换行过程中，如果新的一行的第一个子控件在所有改变的位置之后，并且之前也是某一行的第一个子控件，
+     * 说明后面的换行结果和之前一样，直接复用之前的行，只调整位置。
+     *
+     * @param startRow          开始换行的行索引
+     * @param reuseFromPosition 改变的结束位置，从这个位置开始可以复用之前的行，{@link Integer#MAX_VALUE} 表示不复用
+     */
+    private void breakRows(int startRow, int reuseFromPosition) {
+        addItems(mLineBreaker.beginBreak(startRow, reuseFromPosition));
     }
 
-    @Override
-    protected LayoutParams generateLayoutParams(LayoutParams p) {
-        return new MarginLayoutParams(p);
+    /**
+     * 只在末尾追加了数据时，重新打开最后一行（保留它的宽度、高度），从最后一行之后开始添加子控件，
+     * 已有的行和子控件都不需要重新计算
+     */
+    private void appendRows() {
+        addItems(mLineBreaker.beginAppend());
     }
 
-    private int dip2px(Context context, float dpValue) {
-        final float scale = context.getResources().getDisplayMetrics().density;
-        return (int) (dpValue * scale + 0.5f);
+    /**
+     * 从指定位置开始依次测量子控件并添加到 {@link FlowLineBreaker} 中，直到所有子控件添加完成、达到最大行数或者复用了之前的行
+     *
+     * @param startPosition 第一个需要添加的子控件位置
+     */
+    private void addItems(int startPosition) {
+        FlowChildViewStore childViews = mChildViews;
+        int itemCount = childViews.getItemCount();
+        for (int i = startPosition; i < itemCount; i++) {
+            ensureMeasured(i);
+            if (childViews.isGone(i)) {
+                mLineBreaker.skipItem(i);
+                continue;
+            }
+
+            int rowCount = mLineBreaker.getRowCount();
+            int result = mLineBreaker.addItem(i, childViews.getWidth(i), childViews.getHeight(i),
+                    childViews.getLeftMargin(i), childViews.getTopMargin(i),
+                    childViews.getRightMargin(i), childViews.getBottomMargin(i));
+            if (result == FlowLineBreaker.RESULT_ADDED) continue;
+
+            // 上一行结束了
+            if (mLineBreaker.getRowCount() > rowCount) {
+                onRowMeasured(rowCount);
+            }
+            if (result == FlowLineBreaker.RESULT_ROW_LIMIT) {
+                // 超过最大行数的子控件不显示
+                recycleChildViewsFrom(i);
+                break;
+            } else if (result == FlowLineBreaker.RESULT_ROWS_REUSED) {
+                break;
+            }
+        }
+        // 加上最后一行
+        int lastRow = mLineBreaker.getRowCount();
+        if (mLineBreaker.endBreak()) {
+            onRowMeasured(lastRow);
+        }
+    }
+
+    /**
+     * 确保子控件已经测量过了。有缓存的测量结果时不需要绑定和测量子控件，子控件在所在行需要显示时才获取
+     */
+    private void ensureMeasured(int position) {
+        if (mChildViews.isMeasured(position)) return;
+
+        long itemId = mFlowLayoutAdapter.getItemId(position);
+        View childView = mChildViews.getView(position);
+        int[] itemSize = childView == null ? mMeasureCache.get(itemId) : null;
+        if (itemSize == null && childView == null
+                && mFlowLayoutAdapter.getPrecomputedSize(position, mChildMaxWidth, mChildMaxHeight, mPrecomputedSize)) {
+            itemSize = mPrecomputedSize;
+        }
+        if (itemSize == null) {
+            if (childView == null) {
+                childView = mFlowRecycler.getViewForPosition(mFlowLayoutAdapter, position);
+                mChildViews.setView(position, childView);
+            }
+            if (childView.getVisibility() != View.GONE) {
+                Trace.beginSection(TRACE_TAG_MEASURE_CHILD);
+                try {
+                    measureChild(childView, mLastWidthMeasureSpec, mLastHeightMeasureSpec);
+                } finally {
+                    Trace.endSection();
+                }
+                mLayoutMetrics.onMeasureChild();
+            }
+            itemSize = mMeasureCache.put(itemId, childView);
+        }
+        mChildViews.setMeasuredSize(position, itemSize);
+        if (mChildViews.isGone(position) && childView != null) {
+            recycleChildViewAt(position);
+        }
+    }
+
+    /**
+     * 子控件宽高为 {@link LayoutParams#WRAP_CONTENT} 时可以使用的最大尺寸
+     *
+     * @param measureSpec 父控件的测量规格
+     * @param padding     父控件对应方向上的内边距之和
+     */
+    private static int getChildMaxSize(int measureSpec, int padding) {
+        if (MeasureSpec.getMode(measureSpec) == MeasureSpec.UNSPECIFIED) return Integer.MAX_VALUE;
+        return Math.max(0, MeasureSpec.getSize(measureSpec) - padding);
+    }
+
+    /**
+     * 回收指定位置之后（包括指定位置）的所有子控件，超过最大行数不显示时调用
+     */
+    private void recycleChildViewsFrom(int position) {
+        for (int i = position, itemCount = mChildViews.getItemCount(); i < itemCount; i++) {
+            recycleChildViewAt(i);
+        }
+    }
+
+    /**
+     * 回收指定位置绑定的子控件（如果有）
+     */
+    private void recycleChildViewAt(int position) {
+        View childView = mChildViews.getView(position);
+        if (childView != null) {
+            recycleChildView(childView);
+            mChildViews.setView(position, null);
+        }
+    }
+
+    /**
+     * 检查已添加的子控件是否自己请求了重新布局，请求了的需要重新测量
+     */
+    private void checkChildLayoutRequested() {
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+            View childView = getChildAt(i);
+            if (childView.isLayoutRequested()) {
+                int position = ((LayoutParams) childView.getLayoutParams()).position;
+                mChildViews.invalidateMeasure(position);
+                mMeasureCache.remove(mFlowLayoutAdapter.getItemId(position));
+                markDirty(position, position + 1);
+            }
+        }
+    }
+
+    /**
+     * 一行测量完成，在可见区域内的添加到父控件中，不在可见区域内的回收，
+     * 这样测量过程中最多只持有一行不可见的子控件
+     */
+    private void onRowMeasured(int row) {
+        // 绘制模式没有子控件
+        if (mFlatAdapter != null) return;
+
+        if (!mVirtualizedActive || isRowInVisibleWindow(row)) {
+            for (int i = mLineBreaker.getRowStart(row), end = mLineBreaker.getRowEnd(row); i < end; i++) {
+                if (mLineBreaker.getItemRow(i) != row) continue;
+
+                View childView = mChildViews.getView(i);
+                if (childView == null) {
+                    childView = obtainChildView(i);
+                    mChildViews.setView(i, childView);
+                }
+                addChildView(childView);
+            }
+        } else {
+            detachRow(row);
+        }
+    }
+
+    /**
+     * 行是否与可见区域（加上额外距离）相交
+     */
+    private boolean isRowInVisibleWindow(int row) {
+        int rowTop = mLineBreaker.getRowTop(row);
+        return rowTop < getVisibleWindowBottom() && rowTop + mLineBreaker.getRowHeight(row) > getVisibleWindowTop();
+    }
+
+    /**
+     * 可见区域模式下添加子控件的区域顶部（加上额外距离）
+     */
+    private int getVisibleWindowTop() {
+        return getScrollY() - mVirtualizedExtraSpace;
+    }
+
+    /**
+     * 可见区域模式下添加子控件的区域底部（加上额外距离）
+     */
+    private int getVisibleWindowBottom() {
+        return getScrollY() + mViewContentHeight + getPaddingTop() + getPaddingBottom() + mVirtualizedExtraSpace;
+    }
+
+    /**
+     * 可见区域模式下，根据当前滑动位置添加新进入可见区域的行，移除离开可见区域的行。
+     * 数据改变后还没有重新测量时不处理，重新测量时会同步
+     */
+    private void updateAttachedRows() {
+        if (!mVirtualizedActive || mFlowLayoutAdapter == null || mLineBreaker.getRowCount() == 0) return;
+        if (mFullLayoutRequired || mFirstDirtyPosition != NO_POSITION) return;
+
+        syncAttachedRows(mFirstAttachedRow, mLastAttachedRow, false);
+    }
+
+    /**
+     * 根据当前可见区域，同步指定范围内的行和可见区域内的行：可见的添加子控件，不可见的移除子控件
+     *
+     * @param fromRow 之前可能添加了子控件的第一行索引
+     * @param toRow   之前可能添加了子控件的最后一行索引
+     * @param force   true：可见范围没有改变时也检查每一行（布局改变后）  false：可见范围没有改变时直接返回（滑动时）
+     */
+    private void syncAttachedRows(int fromRow, int toRow, boolean force) {
+        int rowCount = mLineBreaker.getRowCount();
+        // 行的顶部和底部位置都是递增的，二分查找与可见区域相交的第一行和最后一行
+        int windowTop = getVisibleWindowTop();
+        int windowBottom = getVisibleWindowBottom();
+        int firstRow = mLineBreaker.findFirstRowBelow(windowTop);
+        int lastRow = mLineBreaker.findRowForY(windowBottom - 1);
+        if (firstRow >= rowCount || mLineBreaker.getRowTop(firstRow) >= windowBottom) {
+            firstRow = 0;
+            lastRow = -1;
+        }
+        if (!force && firstRow == fromRow && lastRow == toRow) return;
+
+        toRow = Math.min(toRow, rowCount - 1);
+        for (int i = Math.max(0, fromRow); i <= toRow; i++) {
+            if (i < firstRow || i > lastRow) {
+                detachRow(i);
+            }
+        }
+        for (int i = firstRow; i <= lastRow; i++) {
+            attachRow(i);
+        }
+        mFirstAttachedRow = firstRow;
+        mLastAttachedRow = lastRow;
+        invalidate();
+    }
+
+    /**
+     * 给一行没有子控件的位置绑定子控件并添加到父控件中，同时完成布局
+     */
+    private void attachRow(int row) {
+        if (mFlatAdapter != null) return;
+
+        if (mRowRenderer != null) {
+            mRowRenderer.invalidateRow(row);
+        }
+
+        int indexInRow = 0;
+        for (int i = mLineBreaker.getRowStart(row), end = mLineBreaker.getRowEnd(row); i < end; i++) {
+            if (mLineBreaker.getItemRow(i) != row) continue;
+
+            if (mChildViews.getView(i) == null) {
+                View childView = obtainChildView(i);
+                addChildView(childView);
+                mChildViews.setView(i, childView);
+                layoutChildView(i, mLineBreaker.getRowOffsetX(mHorizontalGravity, row, indexInRow));
+            }
+            indexInRow++;
+        }
+    }
+
+    /**
+     * 获取并绑定子控件，尺寸在之前已经确定了（测量过或者有缓存），直接以确定的尺寸测量，
+     * 对于 TextView 这类控件可以省去计算文字宽度的过程
+     */
+    private View obtainChildView(int position) {
+        View childView = mFlowRecycler.getViewForPosition(mFlowLayoutAdapter, position);
+        // 尺寸统一时不会逐个保存测量结果
+        int width = mUniformItemWidth >= 0 ? mUniformItemWidth : mChildViews.getWidth(position);
+        int height = mUniformItemWidth >= 0 ? mUniformItemHeight : mChildViews.getHeight(position);
+        childView.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        return childView;
+    }
+
+    /**
+     * 将一行的子控件从父控件中移除并回收
+     */
+    private void detachRow(int row) {
+        if (mRowRenderer != null) {
+            mRowRenderer.releaseRow(row);
+        }
+        for (int i = mLineBreaker.getRowStart(row), end = mLineBreaker.getRowEnd(row); i < end; i++) {
+            recycleChildViewAt(i);
+        }
+    }
+
+    /**
+     * 数据整体改变了，需要完整布局
+     */
+    void onDataSetChanged() {
+        mLayoutMetrics.addTrigger(FlowLayoutMetrics.TRIGGER_ADAPTER);
+        requestFullLayout();
+    }
+
+    /**
+     * 插入了数据
+     *
+     * @param positionStart 开始位置
+     * @param itemCount     数量
+     */
+    void onItemRangeInserted(int positionStart, int itemCount) {
+        if (itemCount <= 0) return;
+        mLayoutMetrics.addTrigger(FlowLayoutMetrics.TRIGGER_ADAPTER);
+        if (mFullLayoutRequired || positionStart < 0 || positionStart > mChildViews.getItemCount()) {
+            requestFullLayout();
+            return;
+        }
+
+        mChildViews.onItemRangeInserted(positionStart, itemCount);
+        mLineBreaker.onItemRangeInserted(positionStart, itemCount);
+        if (mDirtyEndPosition > positionStart) {
+            mDirtyEndPosition += itemCount;
+        }
+        markDirty(positionStart, positionStart + itemCount);
+        requestLayout();
+    }
+
+    /**
+     * 在末尾追加了数据。没有其他未处理的改变时，下次布局重新打开最后一行，只测量和添加追加的子控件
+     *
+     * @param itemCount 追加的数量
+     */
+    void onItemsAppended(int itemCount) {
+        if (itemCount <= 0) return;
+        // 之前只有追加（或者没有改变）时才能继续只追加，其他改变可能影响了已有的行
+        boolean appendOnly = mFirstDirtyPosition == NO_POSITION || mFirstDirtyPosition == mAppendPosition;
+        onItemRangeInserted(mChildViews.getItemCount(), itemCount);
+        if (appendOnly && !mFullLayoutRequired) {
+            mAppendPosition = mFirstDirtyPosition;
+        }
+    }
+
+    /**
+     * 移除了数据
+     *
+     * @param positionStart 开始位置
+     * @param itemCount     数量
+     */
+    void onItemRangeRemoved(int positionStart, int itemCount) {
+        if (itemCount <= 0) return;
+        mLayoutMetrics.addTrigger(FlowLayoutMetrics.TRIGGER_ADAPTER);
+        if (mFullLayoutRequired || positionStart < 0 || positionStart + itemCount > mChildViews.getItemCount()) {
+            requestFullLayout();
+            return;
+        }
+
+        for (int i = positionStart; i < positionStart + itemCount; i++) {
+            recycleChildViewAt(i);
+        }
+        mChildViews.onItemRangeRemoved(positionStart, itemCount);
+        mLineBreaker.onItemRangeRemoved(positionStart, itemCount);
+        if (mDirtyEndPosition > positionStart + itemCount) {
+            mDirtyEndPosition -= itemCount;
+        } else if (mDirtyEndPosition > positionStart) {
+            mDirtyEndPosition = positionStart;
+        }
+        markDirty(positionStart, positionStart);
+        requestLayout();
+    }
+
+    /**
+     * 数据内容改变了，使对应的测量结果缓存失效，子控件需要重新绑定和测量
+     *
+     * @param positionStart 开始位置
+     * @param itemCount     数量
+     */
+    void onItemRangeChanged(int positionStart, int itemCount) {
+        if (itemCount <= 0) return;
+        mLayoutMetrics.addTrigger(FlowLayoutMetrics.TRIGGER_ADAPTER);
+        if (mFlowLayoutAdapter != null) {
+            for (int i = positionStart; i < positionStart + itemCount; i++) {
+                mMeasureCache.remove(mFlowLayoutAdapter.getItemId(i));
+            }
+        }
+        if (mFullLayoutRequired || positionStart < 0 || positionStart + itemCount > mChildViews.getItemCount()) {
+            requestFullLayout();
+            return;
+        }
+
+        for (int i = positionStart; i < positionStart + itemCount; i++) {
+            // 在从父控件中移除的状态下重新绑定数据，避免绑定时请求重新布局
+            recycleChildViewAt(i);
+            mChildViews.invalidateMeasure(i);
+        }
+        markDirty(positionStart, positionStart + itemCount);
+        requestLayout();
+    }
+
+    /**
+     * 数据位置移动了
+     *
+     * @param fromPosition 原位置
+     * @param toPosition   新位置
+     */
+    void onItemMoved(int fromPosition, int toPosition) {
+        if (fromPosition == toPosition) return;
+        mLayoutMetrics.addTrigger(FlowLayoutMetrics.TRIGGER_ADAPTER);
+        if (mFullLayoutRequired || fromPosition < 0 || fromPosition >= mChildViews.getItemCount()
+                || toPosition < 0 || toPosition >= mChildViews.getItemCount()) {
+            requestFullLayout();
+            return;
+        }
+
+        mChildViews.onItemMoved(fromPosition, toPosition);
+        mLineBreaker.onItemMoved(fromPosition, toPosition);
+        int minPosition = Math.min(fromPosition, toPosition);
+        int maxPosition = Math.max(fromPosition, toPosition);
+        markDirty(minPosition, maxPosition + 1);
+        requestLayout();
+    }
+
+    /**
+     * 标记改变的位置范围，下次布局从第一个改变的位置开始重新换行
+     *
+     * @param fromPosition 第一个改变的位置
+     * @param endPosition  改变的结束位置（不包括），这个位置之后的子控件没有改变
+     */
+    private void markDirty(int fromPosition, int endPosition) {
+        // 位置和尺寸可能改变了，预取的控件不再对应
+        mFlowRecycler.clearPrefetchedViews();
+        // 追加位置及之前的改变（包括属性改变引起的重新换行）会影响最后一行，不能只追加
+        if (fromPosition <= mAppendPosition) {
+            mAppendPosition = NO_POSITION;
+        }
+        if (mFirstDirtyPosition == NO_POSITION || fromPosition < mFirstDirtyPosition) {
+            mFirstDirtyPosition = fromPosition;
+        }
+        mDirtyEndPosition = Math.max(mDirtyEndPosition, endPosition);
+    }
+
+    /**
+     * 请求从指定行开始重新换行，之前的行保持不变。已经测量的子控件使用之前的尺寸，已经添加的子控件不会移除和重新绑定，
+     * 只重新计算位置；需要完整布局时不处理
+     *
+     * @param fromRow 开始重新换行的行索引
+     */
+    private void requestRebreak(int fromRow) {
+        mLayoutMetrics.addTrigger(FlowLayoutMetrics.TRIGGER_CONFIG);
+        if (!mFullLayoutRequired && mFlowLayoutAdapter != null) {
+            int rowCount = mLineBreaker.getRowCount();
+            int position = rowCount == 0 ? 0 : mLineBreaker.getRowStart(Math.max(0, Math.min(fromRow, rowCount - 1)));
+            // 改变的结束位置为数据数量，之后不会复用旧行
+            markDirty(position, mChildViews.getItemCount());
+        }
+        requestLayout();
+    }
+
+    /**
+     * 子控件可用的最大尺寸改变了（父控件尺寸或者 padding 改变），之前测量时尺寸达到了可用尺寸的子控件可能受到了限制，需要重新测量，
+     * 其他子控件的尺寸不受影响
+     *
+     * @param maxWidth  改变前后可用宽度中较小的
+     * @param maxHeight 改变前后可用高度中较小的
+     */
+    private void invalidateConstrainedMeasures(int maxWidth, int maxHeight) {
+        for (int i = 0, itemCount = mChildViews.getItemCount(); i < itemCount; i++) {
+            if (!mChildViews.isMeasured(i) || mChildViews.isGone(i)) continue;
+
+            if (mChildViews.getWidth(i) >= maxWidth || mChildViews.getHeight(i) >= maxHeight) {
+                mChildViews.invalidateMeasure(i);
+                mMeasureCache.remove(mFlowLayoutAdapter.getItemId(i));
+            }
+        }
+    }
+
+    /**
+     * 请求完整布局，配置改变或者数据整体改变时调用
+     */
+    private void requestFullLayout() {
+        // 适配器引起的会在调用前标记为 TRIGGER_ADAPTER，优先级更高
+        mLayoutMetrics.addTrigger(FlowLayoutMetrics.TRIGGER_CONFIG);
+        mFullLayoutRequired = true;
+        mFlowRecycler.clearPrefetchedViews();
+        requestLayout();
+    }
+
+    /**
+     * 移除所有子控件并放入复用池，同时清除换行结果
+     */
+    private void releaseAllChildViews() {
+        scrapAllChildViews();
+        recycleScrapViews();
+        mChildViews.setItemCount(0);
+        mLineBreaker.setItemCount(0);
+        mTotalShowRowCount = 0;
+        mFirstAttachedRow = 0;
+        mLastAttachedRow = -1;
+    }
+
+    /**
+     * 将所有子控件从父控件上分离并放入临时缓存，不能复用的子控件直接移除
+     */
+    private void scrapAllChildViews() {
+        int childCount = getChildCount();
+        if (childCount == 0) return;
+
+        for (int i = 0; i < childCount; i++) {
+            View childView = getChildAt(i);
+            if (((LayoutParams) childView.getLayoutParams()).recyclable) {
+                mFlowRecycler.addScrapView(childView);
+            }
+        }
+        for (int i = childCount - 1; i >= 0; i--) {
+            View childView = getChildAt(i);
+            detachViewFromParent(i);
+            if (!((LayoutParams) childView.getLayoutParams()).recyclable) {
+                removeDetachedView(childView, false);
+            }
+        }
+    }
+
+    /**
+     * 临时缓存中本次没有再使用的子控件，从父控件中彻底移除并放入复用池
+     */
+    private void recycleScrapViews() {
+        for (int i = 0, count = mFlowRecycler.getScrapCount(); i < count; i++) {
+            recycleChildView(mFlowRecycler.getScrapViewAt(i));
+        }
+        mFlowRecycler.clearScrap();
+    }
+
+    /**
+     * 回收子控件：从父控件上分离的需要先彻底移除，已添加到父控件中的需要先移除
+     */
+    private void recycleChildView(View childView) {
+        if (((LayoutParams) childView.getLayoutParams()).detached) {
+            removeDetachedView(childView, false);
+        } else if (childView.getParent() == this) {
+            removeViewInLayout(childView);
+        }
+        mFlowRecycler.recycleView(childView);
+    }
+
+    /**
+     * 将子控件添加到父控件中，临时缓存中的控件重新关联即可，不会触发重新布局
+     */
+    private void addChildView(View childView) {
+        if (mClickDispatchMode == CLICK_DISPATCH_HIT_TEST) {
+            // 由父控件查找点击的子控件，子控件不处理点击
+            childView.setOnClickListener(null);
+            childView.setClickable(false);
+        } else {
+            // 所有子控件共用一个点击监听，点击时根据 LayoutParams 中的位置回调
+            childView.setOnClickListener(mChildClickListener);
+        }
+        LayoutParams layoutParams = (LayoutParams) childView.getLayoutParams();
+        if (layoutParams.detached) {
+            layoutParams.detached = false;
+            attachViewToParent(childView, -1, layoutParams);
+        } else if (childView.getParent() != this) {
+            addViewInLayout(childView, -1, layoutParams, true);
+        }
+    }
+
+    /**
+     * 确保子控件的 LayoutParams 是 {@link LayoutParams} 类型
+     */
+    LayoutParams obtainLayoutParams(View childView) {
+        ViewGroup.LayoutParams layoutParams = childView.getLayoutParams();
+        if (layoutParams instanceof LayoutParams) {
+            return (LayoutParams) layoutParams;
+        }
+
+        LayoutParams flowLayoutParams = layoutParams == null
+                ? generateDefaultLayoutParams()
+                : generateLayoutParams(layoutParams);
+        childView.setLayoutParams(flowLayoutParams);
+        return flowLayoutParams;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        Trace.beginSection(TRACE_TAG_LAYOUT);
+        long startTime = mOnLayoutMetricsListener != null ? System.nanoTime() : 0;
+        int showChildViewCount;
+        try {
+            if (mRowsMeasureRequired) {
+                // 最后一次测量使用了缓存的尺寸，按最终的规格重新换行
+                mRowsMeasureRequired = false;
+                measureRows(mPendingWidthMeasureSpec, mPendingHeightMeasureSpec);
+            }
+            showChildViewCount = layoutRows();
+        } finally {
+            Trace.endSection();
+        }
+        if (mOnLayoutMetricsListener != null) {
+            mLayoutMetrics.onLayoutFinished(System.nanoTime() - startTime, mLineBreaker.getRowCount(), showChildViewCount,
+                    mFlowLayoutAdapter == null ? 0 : mFlowLayoutAdapter.getItemCount(), getChildCount());
+            mOnLayoutMetricsListener.onLayoutMetrics(this, mLayoutMetrics);
+        }
+        mLayoutMetrics.reset();
+        if (mOnChildLayoutFinishListener != null)
+            mOnChildLayoutFinishListener.onLayoutFinish(this, showChildViewCount);
+    }
+
+    /**
+     * 按换行结果布局已经添加了子控件的行
+     *
+     * @return 显示的子控件数量
+     */
+    private int layoutRows() {
+        mLayoutPending = false;
+        mTotalRowCountEstimate = -1;
+        // 确定子控件是否已经全部显示了
+        int showChildViewCount = mLineBreaker.getPlacedItemCount();
+        mChildViewAllShow = mFlowLayoutAdapter == null ? true : mFlowLayoutAdapter.getItemCount() == showChildViewCount;
+
+        if (mFlatAdapter != null) {
+            // 绘制模式没有子控件，也就没有子控件布局改变触发重绘，需要自己重绘
+            invalidate();
+            return showChildViewCount;
+        }
+        if (mRowRenderer != null) {
+            mRowRenderer.releaseAll();
+        }
+
+        // 只需要布局已经添加了子控件的行
+        for (int row = mFirstAttachedRow; row <= mLastAttachedRow; row++) {
+            int indexInRow = 0;
+            for (int i = mLineBreaker.getRowStart(row), end = mLineBreaker.getRowEnd(row); i < end; i++) {
+                if (mLineBreaker.getItemRow(i) != row) continue;
+
+                layoutChildView(i, mLineBreaker.getRowOffsetX(mHorizontalGravity, row, indexInRow++));
+            }
+        }
+        return showChildViewCount;
+    }
+
+    /**
+     * 按换行计算的位置布局子控件
+     *
+     * @param position 位置
+     * @param offsetX  水平方向对齐方式的偏移量
+     */
+    private void layoutChildView(int position, int offsetX) {
+        mChildViews.getView(position).layout(mLineBreaker.getItemLeft(position) + offsetX, mLineBreaker.getItemTop(position),
+                mLineBreaker.getItemRight(position) + offsetX, mLineBreaker.getItemBottom(position));
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (mRowRenderer != null && mFlatAdapter == null && mRowRenderer.canDraw(canvas) && !mLayoutPending
+                && !isLayoutRequested() && getLayoutTransition() == null) {
+            drawRowRenderNodes(canvas);
+            return;
+        }
+
+        super.dispatchDraw(canvas);
+        if (mFlatAdapter != null) {
+            drawFlatItems(canvas);
+        }
     }
 
     /**
-     * 每一行信息
+     * 按行绘制可见的子控件：行的缓存有效时直接绘制缓存，否则先把行的子控件录制到缓存中
      */
-    private static class RowChildViewInfo {
-        private int currentRowUsedWidth; // 行使用宽度
-        private int rowNumber; // 行号
-        private int rowHeight; // 行高
-        private List<ChildViewInfo> rowChildViews; // 行内子控件列表
+    private void drawRowRenderNodes(Canvas canvas) {
+        int saveCount = canvas.save();
+        if (getClipToPadding()) {
+            canvas.clipRect(getScrollX() + getPaddingLeft(), getScrollY() + getPaddingTop(),
+                    getScrollX() + getWidth() - getPaddingRight(), getScrollY() + getHeight() - getPaddingBottom());
+        }
+
+        long drawingTime = getDrawingTime();
+        int width = getWidth();
+        int visibleTop = getScrollY();
+        int visibleBottom = visibleTop + getHeight();
+        boolean animating = false;
+        for (int row = Math.max(0, mFirstAttachedRow), lastRow = Math.min(mLastAttachedRow, mLineBreaker.getRowCount() - 1);
+             row <= lastRow; row++) {
+            int rowTop = mLineBreaker.getRowTop(row);
+            int rowBottom = rowTop + mLineBreaker.getRowHeight(row);
+            if (rowBottom <= visibleTop || rowTop >= visibleBottom) continue;
+
+            Canvas rowCanvas = mRowRenderer.beginRow(row, width, rowTop, rowBottom);
+            if (rowCanvas != null) {
+                boolean more = false;
+                for (int i = mLineBreaker.getRowStart(row), end = mLineBreaker.getRowEnd(row); i < end; i++) {
+                    if (mLineBreaker.getItemRow(i) != row) continue;
+
+                    View childView = mChildViews.getView(i);
+                    if (childView != null && (childView.getVisibility() == VISIBLE || childView.getAnimation() != null)) {
+                        more |= drawChild(rowCanvas, childView, drawingTime);
+                    }
+                }
+                mRowRenderer.endRow(row, more);
+                animating |= more;
+            }
+            mRowRenderer.drawRow(canvas, row);
+        }
+        canvas.restoreToCount(saveCount);
+        if (animating) {
+            // 子控件还在执行动画，下一帧重新录制
+            postInvalidateOnAnimation();
+        }
+    }
+
+    @Override
+    public void onDescendantInvalidated(View child, View target) {
+        super.onDescendantInvalidated(child, target);
+        if (mRowRenderer != null && child.getParent() == this) {
+            int position = ((LayoutParams) child.getLayoutParams()).position;
+            if (position < mLineBreaker.getPlacedItemCount()) {
+                mRowRenderer.invalidateRow(mLineBreaker.getItemRow(position));
+            }
+        }
     }
 
     /**
-     * 子控件信息
+     * 绘制模式下绘制可见行的标签，位置和对齐方式按换行结果计算
      */
-    private static class ChildViewInfo {
-        private View childView;
-        private int left;
-        private int top;
-        private int right;
-        private int bottom;
+    private void drawFlatItems(Canvas canvas) {
+        // 数据整体改变后还没有重新测量时，位置和数据可能对应不上
+        if (mFullLayoutRequired || mChildViews.getItemCount() != mFlatAdapter.getItemCount()) return;
+
+        int rowCount = mLineBreaker.getRowCount();
+        int firstRow = mLineBreaker.findFirstRowBelow(getScrollY());
+        int lastRow = Math.min(mLineBreaker.findRowForY(getScrollY() + getHeight() - 1), rowCount - 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            int indexInRow = 0;
+            for (int i = mLineBreaker.getRowStart(row), end = mLineBreaker.getRowEnd(row); i < end; i++) {
+                if (mLineBreaker.getItemRow(i) != row) continue;
+
+                int offsetX = mLineBreaker.getRowOffsetX(mHorizontalGravity, row, indexInRow++);
+                mFlatAdapter.drawItem(canvas, i, mLineBreaker.getItemLeft(i) + offsetX, mLineBreaker.getItemTop(i),
+                        mLineBreaker.getItemRight(i) + offsetX, mLineBreaker.getItemBottom(i), i == mTapPosition);
+            }
+        }
+    }
 
-        private int rowNumber; // 所在行位置
-        private int position;  // 在父控件中的位置
+    // 拖动状态
+    private boolean mIsBeingDragged;
+    private int mActivePointerId = INVALID_POINTER;
+    private int mLastMotionY;
+    // 嵌套滑动中父控件移动 FlowLayout 的累计距离，测速时修正事件坐标
+    private int mNestedYOffset;
+    // 快速滑动/平滑滚动中上一帧的位置
+    private int mLastScrollerY;
+    private final int[] mScrollOffset = new int[2];
+    private final int[] mScrollConsumed = new int[2];
 
-        private ChildViewInfo(View childView, int rowNumber, int position) {
-            this.childView = childView;
-            this.rowNumber = rowNumber;
-            this.position = position;
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent ev) {
+        int action = ev.getActionMasked();
+        if (action == MotionEvent.ACTION_MOVE && mIsBeingDragged) {
+            return true;
         }
 
-        private void onLayout(int offsetX) {
-            childView.layout(left + offsetX, top, right + offsetX, bottom);
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                mLastMotionY = (int) ev.getY();
+                mActivePointerId = ev.getPointerId(0);
+                obtainVelocityTracker().addMovement(ev);
+                // 快速滑动中按下时直接开始拖动，不交给子控件
+                mScroller.computeScrollOffset();
+                mIsBeingDragged = !mScroller.isFinished();
+                startNestedScroll(ViewCompat.SCROLL_AXIS_VERTICAL, ViewCompat.TYPE_TOUCH);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                int pointerIndex = ev.findPointerIndex(mActivePointerId);
+                if (pointerIndex == -1) break;
+
+                // 只按竖直方向的移动距离判断，水平方向的移动留给子控件
+                int y = (int) ev.getY(pointerIndex);
+                if (Math.abs(y - mLastMotionY) > mTouchSlop && canDragVertically()) {
+                    mIsBeingDragged = true;
+                    mLastMotionY = y;
+                    mNestedYOffset = 0;
+                    obtainVelocityTracker().addMovement(ev);
+                    requestParentDisallowInterceptTouchEvent();
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                onSecondaryPointerUp(ev);
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                endDrag();
+                break;
+        }
+        return mIsBeingDragged;
+    }
+
+    // CLICK_DISPATCH_HIT_TEST 方式下，按下的位置和按下的子控件位置
+    private float mTapDownX;
+    private float mTapDownY;
+    private int mTapPosition = NO_POSITION;
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean tapHandled = handleItemTap(event);
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            mNestedYOffset = 0;
+            startNestedScroll(ViewCompat.SCROLL_AXIS_VERTICAL, ViewCompat.TYPE_TOUCH);
+        }
+        if (!canDragVertically() && !mIsBeingDragged) {
+            return super.onTouchEvent(event) || tapHandled;
         }
 
-        private void addClickListener(final OnItemClickListener onItemClickListener,
-                                      final FlowLayout flowLayout,
-                                      final FlowLayoutAdapter flowLayoutAdapter) {
-            childView.setOnClickListener(new OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    if (onItemClickListener != null) {
-                        onItemClickListener.onItemClick(flowLayout, flowLayoutAdapter,
-                                rowNumber, position);
+        // 测速使用去掉嵌套滑动偏移的坐标，父控件移动 FlowLayout 时速度不受影响
+        MotionEvent velocityEvent = MotionEvent.obtain(event);
+        velocityEvent.offsetLocation(0, mNestedYOffset);
+        obtainVelocityTracker().addMovement(velocityEvent);
+        velocityEvent.recycle();
+
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                mIsBeingDragged = !mScroller.isFinished();
+                if (mIsBeingDragged) {
+                    requestParentDisallowInterceptTouchEvent();
+                    mScroller.abortAnimation();
+                    stopNestedScroll(ViewCompat.TYPE_NON_TOUCH);
+                }
+                mLastMotionY = (int) event.getY();
+                mActivePointerId = event.getPointerId(0);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                int pointerIndex = event.findPointerIndex(mActivePointerId);
+                if (pointerIndex == -1) break;
+
+                int y = (int) event.getY(pointerIndex);
+                int deltaY = mLastMotionY - y;
+                if (!mIsBeingDragged && Math.abs(deltaY) > mTouchSlop) {
+                    mIsBeingDragged = true;
+                    requestParentDisallowInterceptTouchEvent();
+                    deltaY += deltaY > 0 ? -mTouchSlop : mTouchSlop;
+                }
+                if (mIsBeingDragged) {
+                    // 先交给父控件（比如折叠标题栏），剩下的距离自己滑动，滑到边界后剩下的再交给父控件
+                    mScrollOffset[1] = 0;
+                    if (dispatchNestedPreScroll(0, deltaY, mScrollConsumed, mScrollOffset, ViewCompat.TYPE_TOUCH)) {
+                        deltaY -= mScrollConsumed[1];
+                        mNestedYOffset += mScrollOffset[1];
+                    }
+                    mLastMotionY = y - mScrollOffset[1];
+
+                    int scrolledDeltaY = scrollVerticallyBy(deltaY);
+                    mScrollOffset[1] = 0;
+                    mScrollConsumed[1] = 0;
+                    dispatchNestedScroll(0, scrolledDeltaY, 0, deltaY - scrolledDeltaY, mScrollOffset,
+                            ViewCompat.TYPE_TOUCH, mScrollConsumed);
+                    mLastMotionY -= mScrollOffset[1];
+                    mNestedYOffset += mScrollOffset[1];
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (mIsBeingDragged) {
+                    mVelocityTracker.computeCurrentVelocity(1000, mMaximumFlingVelocity);
+                    // 由于坐标轴正方向问题，要加负号。
+                    int velocityY = -(int) mVelocityTracker.getYVelocity(mActivePointerId);
+                    if (Math.abs(velocityY) > mMinimumFlingVelocity && !dispatchNestedPreFling(0, velocityY)) {
+                        dispatchNestedFling(0, velocityY, true);
+                        fling(velocityY);
                     }
                 }
-            });
+                endDrag();
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                endDrag();
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                int index = event.getActionIndex();
+                mLastMotionY = (int) event.getY(index);
+                mActivePointerId = event.getPointerId(index);
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                onSecondaryPointerUp(event);
+                mLastMotionY = (int) event.getY(event.findPointerIndex(mActivePointerId));
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * 内容超出高度，或者有处理竖直方向嵌套滑动的父控件时，由 FlowLayout 处理竖直方向的拖动
+     */
+    private boolean canDragVertically() {
+        return mMaxScrollY > 0 || hasNestedScrollingParent(ViewCompat.TYPE_TOUCH);
+    }
+
+    /**
+     * 在 [0, mMaxScrollY] 范围内竖直滑动
+     *
+     * @return 实际滑动的距离
+     */
+    private int scrollVerticallyBy(int dy) {
+        int oldScrollY = getScrollY();
+        int newScrollY = Math.max(0, Math.min(oldScrollY + dy, mMaxScrollY));
+        if (newScrollY != oldScrollY) {
+            scrollTo(0, newScrollY);
+        }
+        return newScrollY - oldScrollY;
+    }
+
+    /**
+     * 快速滑动，不限制范围，滑到边界后剩下的距离在 {@link #computeScroll()} 中交给父控件
+     */
+    private void fling(int velocityY) {
+        startNestedScroll(ViewCompat.SCROLL_AXIS_VERTICAL, ViewCompat.TYPE_NON_TOUCH);
+        mScroller.fling(0, getScrollY(), 0, velocityY, 0, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        mLastScrollerY = getScrollY();
+        postInvalidateOnAnimation();
+    }
+
+    private void onSecondaryPointerUp(MotionEvent ev) {
+        int pointerIndex = ev.getActionIndex();
+        if (ev.getPointerId(pointerIndex) == mActivePointerId) {
+            // 抬起的是当前拖动的手指，换成另一个手指
+            int newPointerIndex = pointerIndex == 0 ? 1 : 0;
+            mLastMotionY = (int) ev.getY(newPointerIndex);
+            mActivePointerId = ev.getPointerId(newPointerIndex);
+            if (mVelocityTracker != null) {
+                mVelocityTracker.clear();
+            }
+        }
+    }
+
+    private void endDrag() {
+        mIsBeingDragged = false;
+        mActivePointerId = INVALID_POINTER;
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+        stopNestedScroll(ViewCompat.TYPE_TOUCH);
+    }
+
+    private VelocityTracker obtainVelocityTracker() {
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        return mVelocityTracker;
+    }
+
+    private void requestParentDisallowInterceptTouchEvent() {
+        ViewParent parent = getParent();
+        if (parent != null) {
+            parent.requestDisallowInterceptTouchEvent(true);
+        }
+    }
+
+    /**
+     * {@link #CLICK_DISPATCH_HIT_TEST} 方式下处理点击：按下时查找按下位置的子控件，
+     * 移动距离没有超过 TouchSlop 并且抬起时还在同一个子控件上，回调点击监听
+     *
+     * @return 是否需要继续接收后续事件
+     */
+    private boolean handleItemTap(MotionEvent event) {
+        // 绘制模式没有子控件，总是由父控件处理点击
+        if ((mClickDispatchMode != CLICK_DISPATCH_HIT_TEST && mFlatAdapter == null) || mOnItemClickListener == null) {
+            mTapPosition = NO_POSITION;
+            return false;
+        }
+
+        int oldTapPosition = mTapPosition;
+
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                mTapDownX = event.getX();
+                mTapDownY = event.getY();
+                mTapPosition = getItemPositionAt(mTapDownX, mTapDownY);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (Math.abs(event.getX() - mTapDownX) > mTouchSlop || Math.abs(event.getY() - mTapDownY) > mTouchSlop) {
+                    mTapPosition = NO_POSITION;
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                int position = mTapPosition;
+                mTapPosition = NO_POSITION;
+                if (position != NO_POSITION && getItemPositionAt(event.getX(), event.getY()) == position) {
+                    playSoundEffect(SoundEffectConstants.CLICK);
+                    mOnItemClickListener.onItemClick(this, mFlowLayoutAdapter,
+                            mLineBreaker.getItemRow(position) + 1, position);
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                mTapPosition = NO_POSITION;
+                break;
+        }
+        if (mFlatAdapter != null && oldTapPosition != mTapPosition) {
+            // 绘制模式下按下的标签显示按下状态
+            invalidate();
+        }
+        return mTapPosition != NO_POSITION;
+    }
+
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        // 可见区域模式下，滑动时更新添加了子控件的行
+        if (mVirtualizedActive) {
+            updateAttachedRows();
+            // 快速滑动中，这一帧绘制完成后预取即将显示的行
+            if (mPrefetchEnabled && mFlatAdapter == null && !mScroller.isFinished()) {
+                mPrefetcher.schedule();
+            }
+        }
+    }
+
+    /**
+     * 在截止时间之前，按滑动方向预取即将进入可见区域的行：创建、绑定并以确定的尺寸测量，保存在 {@link FlowRecycler} 中，
+     * 行进入可见区域时直接使用。离可见区域近的行先预取，剩下的时间不够时停止，下一帧继续
+     *
+     * @param prefetcher    预取调度
+     * @param deadlineNanos 截止时间（下一帧开始的时间）
+     */
+    void prefetch(FlowPrefetcher prefetcher, long deadlineNanos) {
+        if (!mPrefetchEnabled || !mVirtualizedActive || mFlatAdapter != null || mFlowLayoutAdapter == null
+                || mScroller.isFinished() || mLayoutPending || mFullLayoutRequired || mFirstDirtyPosition != NO_POSITION) {
+            return;
+        }
+        int rowCount = mLineBreaker.getRowCount();
+        if (rowCount == 0) return;
+
+        // 按当前速度接下来几帧会滑过的距离内的行，至少一行
+        boolean scrollDown = mScroller.getFinalY() > mScroller.getCurrY();
+        int distance = (int) (mScroller.getCurrVelocity() * prefetcher.getFrameIntervalNanos() * PREFETCH_FRAME_COUNT / 1000000000L);
+        int fromRow;
+        int toRow;
+        if (scrollDown) {
+            fromRow = mLastAttachedRow + 1;
+            toRow = Math.min(rowCount - 1, Math.max(fromRow, mLineBreaker.findRowForY(getVisibleWindowBottom() + distance)));
+        } else {
+            toRow = Math.min(mFirstAttachedRow, rowCount) - 1;
+            fromRow = Math.max(0, Math.min(toRow, mLineBreaker.findFirstRowBelow(getVisibleWindowTop() - distance)));
+        }
+        if (fromRow > toRow) {
+            mFlowRecycler.clearPrefetchedViews();
+            return;
+        }
+        // 不在预取范围内的（比如滑动方向改变了）回收
+        mFlowRecycler.recyclePrefetchedViews(mLineBreaker.getRowStart(fromRow), mLineBreaker.getRowEnd(toRow));
+
+        Trace.beginSection(TRACE_TAG_PREFETCH);
+        try {
+            for (int i = 0, count = toRow - fromRow + 1; i < count; i++) {
+                int row = scrollDown ? fromRow + i : toRow - i;
+                for (int position = mLineBreaker.getRowStart(row), end = mLineBreaker.getRowEnd(row); position < end; position++) {
+                    if (mLineBreaker.getItemRow(position) != row || mChildViews.getView(position) != null
+                            || mFlowRecycler.hasPrefetchedView(position)) {
+                        continue;
+                    }
+                    if (!prefetcher.hasTimeForItem(deadlineNanos)) return;
+
+                    long startTime = System.nanoTime();
+                    mFlowRecycler.addPrefetchedView(position, obtainChildView(position));
+                    prefetcher.onItemPrefetched(System.nanoTime() - startTime);
+                }
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mScroller.abortAnimation();
+        stopNestedScroll(ViewCompat.TYPE_NON_TOUCH);
+        mPrefetcher.cancel();
+        mFlowRecycler.clearPrefetchedViews();
+        if (mRowRenderer != null) {
+            mRowRenderer.releaseAll();
+        }
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        if (mPendingSavedState != null) {
+            // 恢复的状态还没有使用（比如还没有布局过），原样保存
+            savedState.scrollY = mPendingSavedState.scrollY;
+            savedState.snapshot = mPendingSavedState.snapshot;
+        } else {
+            savedState.scrollY = getScrollY();
+            savedState.snapshot = captureSnapshot();
         }
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        mPendingSavedState = savedState;
+        requestFullLayout();
+    }
+
+    /**
+     * 保存当前的布局快照，布局不是最新的、子控件尺寸统一（算术换行不需要快照）时返回 {@code null}
+     */
+    private FlowLayoutSnapshot captureSnapshot() {
+        if (mFlowLayoutAdapter == null || mFullLayoutRequired || mFirstDirtyPosition != NO_POSITION
+                || mUniformItemWidth >= 0 || mChildViews.getItemCount() != mFlowLayoutAdapter.getItemCount()) {
+            return null;
+        }
+        return FlowLayoutSnapshot.capture(mChildViews, mLineBreaker, getSnapshotConditions(), computeItemSetHash());
+    }
+
+    @Override
+    public void computeScroll() {
+        if (!mScroller.computeScrollOffset()) return;
+
+        int currY = mScroller.getCurrY();
+        int unconsumed = currY - mLastScrollerY;
+        mLastScrollerY = currY;
+
+        // 和拖动一样：先交给父控件，剩下的自己滑动，滑到边界后剩下的再交给父控件
+        mScrollConsumed[1] = 0;
+        dispatchNestedPreScroll(0, unconsumed, mScrollConsumed, null, ViewCompat.TYPE_NON_TOUCH);
+        unconsumed -= mScrollConsumed[1];
+        if (unconsumed != 0) {
+            int scrolledByMe = scrollVerticallyBy(unconsumed);
+            unconsumed -= scrolledByMe;
+            mScrollConsumed[1] = 0;
+            dispatchNestedScroll(0, scrolledByMe, 0, unconsumed, null, ViewCompat.TYPE_NON_TOUCH, mScrollConsumed);
+            unconsumed -= mScrollConsumed[1];
+        }
+        // 到了边界并且父控件也不再处理，停止快速滑动
+        if (unconsumed != 0) {
+            mScroller.abortAnimation();
+        }
+
+        if (mScroller.isFinished()) {
+            stopNestedScroll(ViewCompat.TYPE_NON_TOUCH);
+        } else {
+            // 和屏幕刷新同步，每一帧只计算一次
+            postInvalidateOnAnimation();
+        }
+    }
+
+    private NestedScrollingChildHelper getScrollingChildHelper() {
+        // View 的构造方法中可能就会调用 setNestedScrollingEnabled()，这时还没有初始化
+        if (mScrollingChildHelper == null) {
+            mScrollingChildHelper = new NestedScrollingChildHelper(this);
+        }
+        return mScrollingChildHelper;
+    }
+
+    @Override
+    public void setNestedScrollingEnabled(boolean enabled) {
+        getScrollingChildHelper().setNestedScrollingEnabled(enabled);
+    }
+
+    @Override
+    public boolean isNestedScrollingEnabled() {
+        return getScrollingChildHelper().isNestedScrollingEnabled();
+    }
+
+    @Override
+    public boolean startNestedScroll(int axes) {
+        return startNestedScroll(axes, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public boolean startNestedScroll(int axes, int type) {
+        return getScrollingChildHelper().startNestedScroll(axes, type);
+    }
+
+    @Override
+    public void stopNestedScroll() {
+        stopNestedScroll(ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void stopNestedScroll(int type) {
+        getScrollingChildHelper().stopNestedScroll(type);
+    }
+
+    @Override
+    public boolean hasNestedScrollingParent() {
+        return hasNestedScrollingParent(ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public boolean hasNestedScrollingParent(int type) {
+        return getScrollingChildHelper().hasNestedScrollingParent(type);
+    }
+
+    @Override
+    public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed,
+                                        int[] offsetInWindow) {
+        return getScrollingChildHelper().dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+                offsetInWindow);
+    }
+
+    @Override
+    public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed,
+                                        int[] offsetInWindow, int type) {
+        return getScrollingChildHelper().dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+                offsetInWindow, type);
+    }
+
+    @Override
+    public void dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed,
+                                     int[] offsetInWindow, int type, int[] consumed) {
+        getScrollingChildHelper().dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+                offsetInWindow, type, consumed);
+    }
+
+    @Override
+    public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow) {
+        return dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow, int type) {
+        return getScrollingChildHelper().dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow, type);
+    }
+
+    @Override
+    public boolean dispatchNestedFling(float velocityX, float velocityY, boolean consumed) {
+        return getScrollingChildHelper().dispatchNestedFling(velocityX, velocityY, consumed);
+    }
+
+    @Override
+    public boolean dispatchNestedPreFling(float velocityX, float velocityY) {
+        return getScrollingChildHelper().dispatchNestedPreFling(velocityX, velocityY);
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        if (p instanceof MarginLayoutParams) {
+            return new LayoutParams((MarginLayoutParams) p);
+        }
+        return new LayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+
+    private int dip2px(Context context, float dpValue) {
+        final float scale = context.getResources().getDisplayMetrics().density;
+        return (int) (dpValue * scale + 0.5f);
+    }
+
+    /**
+     * {@link FlowLayout} 子控件的 LayoutParams，额外保存了复用需要的信息
+     */
+    public static class LayoutParams extends MarginLayoutParams {
+        int viewType; // 控件类型
+        int position; // 绑定的数据位置
+        long itemId = FlowLayoutAdapter.NO_ID; // 绑定的数据的稳定 id，适配器没有稳定 id 时为 NO_ID
+        boolean recyclable = true; // 是否可以复用
+        boolean detached; // 是否已经从父控件上分离，在临时缓存中
+
+        public LayoutParams(Context c, AttributeSet attrs) {
+            super(c, attrs);
+        }
+
+        public LayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public LayoutParams(MarginLayoutParams source) {
+            super(source);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
+
+    /**
+     * 保存的状态：滑动位置和布局快照
+     */
+    static class SavedState extends BaseSavedState {
+        int scrollY;
+        FlowLayoutSnapshot snapshot; // 没有保存快照时为 null
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        SavedState(Parcel source) {
+            super(source);
+            scrollY = source.readInt();
+            if (source.readInt() != 0) {
+                snapshot = FlowLayoutSnapshot.readFromParcel(source);
+            }
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            super.writeToParcel(dest, flags);
+            dest.writeInt(scrollY);
+            dest.writeInt(snapshot == null ? 0 : 1);
+            if (snapshot != null) {
+                snapshot.writeToParcel(dest);
+            }
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel source) {
+                return new SavedState(source);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * 布局统计数据监听
+     */
+    public interface OnLayoutMetricsListener {
+        /**
+         * 每次布局完成后回调
+         *
+         * @param flowLayout {@link FlowLayout} 控件对象
+         * @param metrics    本次布局过程的统计数据，回调结束后会被重置，需要保存时复制需要的值
+         */
+        void onLayoutMetrics(FlowLayout flowLayout, FlowLayoutMetrics metrics);
     }
 
     /**
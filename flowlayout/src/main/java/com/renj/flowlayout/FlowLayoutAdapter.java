@@ -10,16 +10,148 @@ import android.view.View;
  * <p>
  * 创建时间：2020-10-29   14:29
  * <p>
- * 描述：流式布局({@link FlowLayout})控件适配器
+ * 描述：流式布局({@link FlowLayout})控件适配器。<br/>
+ * 推荐重写 {@link #onCreateView(Context, FlowLayout, int)} 和 {@link #onBindView(View, int)} 方法，
+ * {@link FlowLayout} 会复用已经创建的子控件，只重新绑定数据；
+ * 只重写 {@link #createView(Context, FlowLayout, int)} 方法时，每次布局都会重新创建所有子控件。
  * <p>
  * 修订历史：
  * <p>
  * ======================================================================
  */
 public abstract class FlowLayoutAdapter {
+    /**
+     * 没有稳定 id
+     */
+    public static final long NO_ID = -1;
+    /**
+     * 没有尺寸估算值，见 {@link #getItemSizeHint(int, int)}
+     */
+    public static final int NO_SIZE_HINT = -1;
+    /**
+     * 子控件尺寸不固定，见 {@link #getFixedItemWidth()}、{@link #getFixedItemHeight()}
+     */
+    public static final int NO_FIXED_SIZE = -1;
+
     private FlowLayout flowLayout;
 
-    protected abstract View createView(Context context, FlowLayout flowLayout, int position);
+    /**
+     * 创建并绑定子控件，使用这种方式创建的子控件不能复用。
+     * 只有当 {@link #onCreateView(Context, FlowLayout, int)} 方法返回 {@code null} 时才会调用。
+     *
+     * @param context    上下文
+     * @param flowLayout {@link FlowLayout} 控件对象
+     * @param position   位置
+     * @return 子控件
+     */
+    protected View createView(Context context, FlowLayout flowLayout, int position) {
+        throw new IllegalStateException("FlowLayoutAdapter must override onCreateView() and onBindView(), or createView().");
+    }
+
+    /**
+     * 根据控件类型创建子控件，不需要绑定数据，绑定数据在 {@link #onBindView(View, int)} 方法中完成
+     *
+     * @param context    上下文
+     * @param flowLayout {@link FlowLayout} 控件对象
+     * @param viewType   控件类型，{@link #getItemViewType(int)} 方法的返回值
+     * @return 子控件，返回 {@code null} 时使用 {@link #createView(Context, FlowLayout, int)} 方法创建
+     */
+    protected View onCreateView(Context context, FlowLayout flowLayout, int viewType) {
+        return null;
+    }
+
+    /**
+     * 给子控件绑定数据，子控件可能是新创建的，也可能是复用的，需要重新设置所有会变化的状态
+     *
+     * @param view     由 {@link #onCreateView(Context, FlowLayout, int)} 方法创建的子控件
+     * @param position 位置
+     */
+    protected void onBindView(View view, int position) {
+    }
+
+    /**
+     * 获取指定位置的控件类型，只有相同类型的控件才会复用，默认都是同一种类型
+     *
+     * @param position 位置
+     * @return 控件类型
+     */
+    public int getItemViewType(int position) {
+        return 0;
+    }
+
+    /**
+     * 获取指定位置数据的稳定 id，默认返回 {@link #NO_ID}。<br/>
+     * 返回稳定 id 后，{@link FlowLayout} 会按 id 缓存子控件的测量结果，数据没有改变时不再重复测量；
+     * 当某一项数据改变导致子控件尺寸可能改变时，需要调用 {@link #notifyItemChanged(int)} 方法。
+     *
+     * @param position 位置
+     * @return 稳定 id，同一项数据在任何时候都必须返回相同的 id
+     */
+    public long getItemId(int position) {
+        return NO_ID;
+    }
+
+    /**
+     * 适配器是否有稳定 id，默认 {@code false}。<br/>
+     * 返回 {@code true} 时 {@link #getItemId(int)} 需要为每一项返回稳定 id，{@link FlowLayout} 完整布局（比如 {@link #notifyChange()}）时
+     * 按 id 查找之前的子控件，数据位置改变后同一项数据仍然使用原来的控件（会重新绑定数据）。
+     * 整体替换数据时推荐使用 {@link FlowListDiffer}，只通知改变了的部分。
+     *
+     * @return true：有稳定 id
+     */
+    public boolean hasStableIds() {
+        return false;
+    }
+
+    /**
+     * 获取指定位置子控件宽度的估算值（包括左右外边距），不需要创建子控件，默认返回 {@link #NO_SIZE_HINT}。<br/>
+     * 设置了最大行数时，{@link FlowLayout} 只对没有显示的子控件调用这个方法，按估算的宽度继续换行，
+     * 用于计算 {@link FlowLayout#getTotalRowCountEstimate()}。比如文字标签可以用 {@code Paint.measureText()} 加上内边距估算，
+     * 固定宽度的子控件直接返回宽度。
+     *
+     * @param position        位置
+     * @param widthConstraint 子控件最大可用宽度（父控件内容宽度）
+     * @return 宽度估算值，没有时返回 {@link #NO_SIZE_HINT}
+     */
+    public int getItemSizeHint(int position, int widthConstraint) {
+        return NO_SIZE_HINT;
+    }
+
+    /**
+     * 所有子控件统一的宽度（px，不包括外边距），默认返回 {@link #NO_FIXED_SIZE}。<br/>
+     * 和 {@link #getFixedItemHeight()} 同时返回固定值时，{@link FlowLayout} 直接按算术计算每行数量、行数和总高度，
+     * 不需要逐个测量子控件，只绑定和测量需要显示的子控件，适合表情、图标选择器这类尺寸统一的情况。<br/>
+     * 注意：这种情况下子控件的外边距和 {@link View#GONE} 都不生效；固定尺寸改变后需要调用 {@link #notifyChange()}。
+     *
+     * @return 子控件宽度
+     */
+    public int getFixedItemWidth() {
+        return NO_FIXED_SIZE;
+    }
+
+    /**
+     * 所有子控件统一的高度（px，不包括外边距），默认返回 {@link #NO_FIXED_SIZE}。<br/>
+     * 只有和 {@link #getFixedItemWidth()} 同时返回固定值时才生效，只有高度固定时子控件仍然正常测量。
+     *
+     * @return 子控件高度
+     */
+    public int getFixedItemHeight() {
+        return NO_FIXED_SIZE;
+    }
+
+    /**
+     * 获取预先计算好的子控件尺寸和外边距，有结果时 {@link FlowLayout} 测量时不需要绑定和测量子控件。
+     * 默认没有，由 {@link TextTagFlowLayoutAdapter} 实现
+     *
+     * @param position  位置
+     * @param maxWidth  子控件最大可用宽度，超过时需要返回 {@code false}
+     * @param maxHeight 子控件最大可用高度，超过时需要返回 {@code false}
+     * @param itemSize  保存结果的数组，索引见 {@link FlowMeasureCache}
+     * @return true：itemSize 中已经保存了结果  false：没有预先计算好的结果
+     */
+    boolean getPrecomputedSize(int position, int maxWidth, int maxHeight, int[] itemSize) {
+        return false;
+    }
 
     public abstract int getItemCount();
 
@@ -29,8 +161,94 @@ public abstract class FlowLayoutAdapter {
         this.flowLayout = flowLayout;
     }
 
+    /**
+     * 数据整体改变了，所有子控件重新绑定并重新换行。只有部分数据改变时，推荐使用 notifyItemXxx() 系列方法
+     */
     public void notifyChange() {
-        flowLayout.requestLayout();
+        if (flowLayout == null) return;
+        flowLayout.onDataSetChanged();
+    }
+
+    /**
+     * 指定位置的数据改变了，会清除该位置子控件的测量结果缓存，从所在行开始重新换行
+     *
+     * @param position 位置
+     */
+    public void notifyItemChanged(int position) {
+        notifyItemRangeChanged(position, 1);
+    }
+
+    /**
+     * 指定范围的数据改变了
+     *
+     * @param positionStart 开始位置
+     * @param itemCount     数量
+     */
+    public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        if (flowLayout == null) return;
+        flowLayout.onItemRangeChanged(positionStart, itemCount);
+    }
+
+    /**
+     * 在指定位置插入了数据，之前的行保持不变，只从插入位置所在行开始重新换行
+     *
+     * @param position 位置
+     */
+    public void notifyItemInserted(int position) {
+        notifyItemRangeInserted(position, 1);
+    }
+
+    /**
+     * 在指定位置插入了多条数据
+     *
+     * @param positionStart 开始位置
+     * @param itemCount     数量
+     */
+    public void notifyItemRangeInserted(int positionStart, int itemCount) {
+        if (flowLayout == null) return;
+        flowLayout.onItemRangeInserted(positionStart, itemCount);
+    }
+
+    /**
+     * 在末尾追加了多条数据（比如分页加载）。和 {@link #notifyItemRangeInserted(int, int)} 相比，
+     * 没有其他未处理的改变时，{@link FlowLayout} 重新打开最后一行，保留它的宽度和高度，只测量和添加追加的子控件
+     *
+     * @param itemCount 追加的数量
+     */
+    public void notifyItemsAppended(int itemCount) {
+        if (flowLayout == null) return;
+        flowLayout.onItemsAppended(itemCount);
+    }
+
+    /**
+     * 移除了指定位置的数据
+     *
+     * @param position 位置
+     */
+    public void notifyItemRemoved(int position) {
+        notifyItemRangeRemoved(position, 1);
+    }
+
+    /**
+     * 移除了指定范围的数据
+     *
+     * @param positionStart 开始位置
+     * @param itemCount     数量
+     */
+    public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        if (flowLayout == null) return;
+        flowLayout.onItemRangeRemoved(positionStart, itemCount);
+    }
+
+    /**
+     * 数据从一个位置移动到了另一个位置
+     *
+     * @param fromPosition 原位置
+     * @param toPosition   新位置
+     */
+    public void notifyItemMoved(int fromPosition, int toPosition) {
+        if (flowLayout == null) return;
+        flowLayout.onItemMoved(fromPosition, toPosition);
     }
 
 }
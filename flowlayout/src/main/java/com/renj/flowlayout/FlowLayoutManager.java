@@ -0,0 +1,554 @@
+package com.renj.flowlayout;
+
+import android.content.Context;
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Trace;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.recyclerview.widget.LinearSmoothScroller;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   22:50
+ * <p>
+ * 描述：流式布局的 {@link RecyclerView.LayoutManager}，竖直方向滑动。<br/>
+ * 换行由 {@link FlowLineBreaker} 完成，对齐方式（{@link FlowLayout#HORIZONTAL_GRAVITY_LEFT} 等）、间距和最大行数的规则都和
+ * {@link FlowLayout} 一样，数据很多时可以直接替换 {@link FlowLayout}，使用 RecyclerView 的复用、预取和item动画。<br/>
+ * 换行需要知道之前所有子控件的尺寸，所以子控件只在第一次换行到它时测量（包括 ItemDecoration 和外边距），
+ * 之后按换行结果的尺寸精确测量；只添加与可见区域相交的行，滑动时按需继续换行。
+ * 数据改变时，只丢弃第一个改变的位置所在行及之后的换行结果。<br/>
+ * 保存状态时记录可见区域顶部所在行的第一个位置和相对这一行的滑动距离，重建（比如旋转屏幕）后宽度改变、换行结果不同时也能回到同一位置。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public class FlowLayoutManager extends RecyclerView.LayoutManager implements RecyclerView.SmoothScroller.ScrollVectorProvider {
+    private static final String TRACE_TAG_BREAK = "FlowLayoutManager#breakRows";
+    private static final int NO_POSITION = RecyclerView.NO_POSITION;
+
+    private final Context mContext;
+    private final FlowLineBreaker mLineBreaker = new FlowLineBreaker();
+    // 换行时测量过、还没有添加的子控件，key：位置；每次布局或者滑动结束时放回 RecyclerView 的缓存
+    private final SparseArray<View> mMeasuredViews = new SparseArray<>();
+    private final Rect mDecorInsets = new Rect();
+
+    private int mHorizontalGravity = FlowLayout.HORIZONTAL_GRAVITY_LEFT;
+    private int mHorizontalSpacing;
+    private int mVerticalSpacing;
+    private int mMaxRowCount = Integer.MAX_VALUE;
+
+    private int mScrollOffset; // 竖直方向滑动距离
+    private int mPendingScrollPosition = NO_POSITION; // 等待布局时滑动到的位置
+    private int mPendingScrollOffset; // 等待布局时相对滑动到的位置所在行的滑动距离，恢复状态时使用
+    private int mFirstDirtyPosition = 0; // 第一个改变的位置，从所在行开始重新换行
+    private boolean mBreakFinished; // 所有子控件都已经换行（或者达到最大行数）
+    private int mFirstAttachedRow = 0; // 已经添加了子控件的第一行
+    private int mLastAttachedRow = -1; // 已经添加了子控件的最后一行
+
+    public FlowLayoutManager(Context context) {
+        this.mContext = context;
+    }
+
+    /**
+     * 设置水平方向对齐方式，默认居左对齐，取值同 {@link FlowLayout#setHorizontalGravity(int)}
+     */
+    public void setHorizontalGravity(int horizontalGravity) {
+        if (this.mHorizontalGravity != horizontalGravity) {
+            this.mHorizontalGravity = horizontalGravity;
+            // 对齐方式不影响换行，只需要重新布局
+            requestLayout();
+        }
+    }
+
+    public int getHorizontalGravity() {
+        return mHorizontalGravity;
+    }
+
+    /**
+     * 设置子控件之间的间距
+     *
+     * @param horizontalSpacing 水平方向间距 dp
+     * @param verticalSpacing   竖直方向间距 dp
+     */
+    public void setSpacing(int horizontalSpacing, int verticalSpacing) {
+        if (horizontalSpacing < 0 || verticalSpacing < 0) return;
+
+        horizontalSpacing = dip2px(horizontalSpacing);
+        verticalSpacing = dip2px(verticalSpacing);
+        if (this.mHorizontalSpacing != horizontalSpacing || this.mVerticalSpacing != verticalSpacing) {
+            this.mHorizontalSpacing = horizontalSpacing;
+            this.mVerticalSpacing = verticalSpacing;
+            markDirty(0);
+            requestLayout();
+        }
+    }
+
+    /**
+     * 设置最大显示行数，超过的子控件不显示
+     *
+     * @param maxRowCount 最大显示行数  小于0表示全部显示
+     */
+    public void setMaxRowCount(int maxRowCount) {
+        if (maxRowCount < 0) {
+            maxRowCount = Integer.MAX_VALUE;
+        }
+        if (this.mMaxRowCount != maxRowCount) {
+            this.mMaxRowCount = maxRowCount;
+            markDirty(0);
+            requestLayout();
+        }
+    }
+
+    public int getMaxRowCount() {
+        return mMaxRowCount == Integer.MAX_VALUE ? -1 : mMaxRowCount;
+    }
+
+    /**
+     * 已经确定的行数，没有滑动到的行还没有换行，不包括在内
+     */
+    public int getRowCount() {
+        return getCompleteRowCount();
+    }
+
+    @Override
+    public RecyclerView.LayoutParams generateDefaultLayoutParams() {
+        return new RecyclerView.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public boolean isAutoMeasureEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean canScrollVertically() {
+        return true;
+    }
+
+    @Override
+    public void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter) {
+        removeAllViews();
+        mScrollOffset = 0;
+        markDirty(0);
+    }
+
+    @Override
+    public void onItemsChanged(RecyclerView recyclerView) {
+        markDirty(0);
+    }
+
+    @Override
+    public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+        markDirty(positionStart);
+    }
+
+    @Override
+    public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+        markDirty(positionStart);
+    }
+
+    @Override
+    public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount) {
+        markDirty(positionStart);
+    }
+
+    @Override
+    public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+        markDirty(Math.min(from, to));
+    }
+
+    @Override
+    public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        int itemCount = state.getItemCount();
+        if (itemCount == 0) {
+            removeAndRecycleAllViews(recycler);
+            mLineBreaker.setItemCount(0);
+            mScrollOffset = 0;
+            mFirstDirtyPosition = NO_POSITION;
+            mBreakFinished = true;
+            mFirstAttachedRow = 0;
+            mLastAttachedRow = -1;
+            return;
+        }
+
+        // 宽度或者 padding 改变了需要重新测量和换行，数据数量改变时都会先收到通知
+        int contentWidth = getWidth() - getPaddingLeft() - getPaddingRight();
+        if (contentWidth != mLineBreaker.getContentWidth() || getPaddingLeft() != mLineBreaker.getOriginX()
+                || getPaddingTop() != mLineBreaker.getOriginY()
+                || (mFirstDirtyPosition == NO_POSITION && itemCount != mLineBreaker.getItemCount())) {
+            markDirty(0);
+        }
+        if (mFirstDirtyPosition != NO_POSITION) {
+            mLineBreaker.setContentWidth(contentWidth);
+            mLineBreaker.setSpacing(mHorizontalSpacing, mVerticalSpacing);
+            mLineBreaker.setMaxRowCount(mMaxRowCount);
+            mLineBreaker.setOrigin(getPaddingLeft(), getPaddingTop());
+            // 第一个改变的位置之前的子控件没有改变，从它前一个子控件所在行开始重新换行
+            int keepRowCount = mFirstDirtyPosition == 0 ? 0 : mLineBreaker.findRowForPosition(mFirstDirtyPosition - 1);
+            mLineBreaker.truncateRows(keepRowCount, itemCount);
+            mBreakFinished = false;
+            mFirstDirtyPosition = NO_POSITION;
+        }
+
+        detachAndScrapAttachedViews(recycler);
+        mFirstAttachedRow = 0;
+        mLastAttachedRow = -1;
+
+        if (mPendingScrollPosition != NO_POSITION) {
+            int position = Math.min(mPendingScrollPosition, itemCount - 1);
+            breakRows(recycler, itemCount, 0, position);
+            mScrollOffset = mLineBreaker.getRowTop(mLineBreaker.findRowForPosition(position)) - getPaddingTop()
+                    + mPendingScrollOffset;
+            mPendingScrollPosition = NO_POSITION;
+            mPendingScrollOffset = 0;
+        }
+        breakRows(recycler, itemCount, mScrollOffset + getLayoutHeight(), NO_POSITION);
+        if (mBreakFinished) {
+            mScrollOffset = Math.max(0, Math.min(mScrollOffset, getMaxScrollOffset()));
+        }
+        fillRows(recycler, itemCount);
+        recycleMeasuredViews(recycler);
+    }
+
+    @Override
+    public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        if (dy == 0 || getChildCount() == 0) return 0;
+
+        int itemCount = state.getItemCount();
+        int consumed;
+        if (dy > 0) {
+            breakRows(recycler, itemCount, mScrollOffset + getLayoutHeight() + dy, NO_POSITION);
+            consumed = mBreakFinished ? Math.min(dy, Math.max(0, getMaxScrollOffset() - mScrollOffset)) : dy;
+        } else {
+            consumed = Math.max(dy, -mScrollOffset);
+        }
+        mScrollOffset += consumed;
+        offsetChildrenVertical(-consumed);
+        fillRows(recycler, itemCount);
+        recycleMeasuredViews(recycler);
+        return consumed;
+    }
+
+    @Override
+    public void scrollToPosition(int position) {
+        mPendingScrollPosition = position;
+        mPendingScrollOffset = 0;
+        requestLayout();
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState();
+        if (mPendingScrollPosition != NO_POSITION) {
+            // 等待布局时滑动到的位置还没有使用，原样保存
+            savedState.anchorPosition = mPendingScrollPosition;
+            savedState.anchorOffset = mPendingScrollOffset;
+        } else if (getChildCount() > 0 && mLineBreaker.getRowCount() > 0) {
+            int top = mScrollOffset + getPaddingTop();
+            int row = mLineBreaker.findRowForY(top);
+            savedState.anchorPosition = mLineBreaker.getRowStart(row);
+            savedState.anchorOffset = top - mLineBreaker.getRowTop(row);
+        }
+        return savedState;
+    }
+
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) return;
+
+        SavedState savedState = (SavedState) state;
+        if (savedState.anchorPosition != NO_POSITION) {
+            mPendingScrollPosition = savedState.anchorPosition;
+            mPendingScrollOffset = savedState.anchorOffset;
+            requestLayout();
+        }
+    }
+
+    @Override
+    public void smoothScrollToPosition(RecyclerView recyclerView, RecyclerView.State state, int position) {
+        LinearSmoothScroller smoothScroller = new LinearSmoothScroller(recyclerView.getContext());
+        smoothScroller.setTargetPosition(position);
+        startSmoothScroll(smoothScroller);
+    }
+
+    @Override
+    public PointF computeScrollVectorForPosition(int targetPosition) {
+        if (getChildCount() == 0) return null;
+
+        int firstPosition = getPosition(getChildAt(0));
+        return new PointF(0, targetPosition < firstPosition ? -1 : 1);
+    }
+
+    @Override
+    public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state,
+                                                 LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        if (dy == 0 || getChildCount() == 0 || mFirstAttachedRow > mLastAttachedRow) return;
+
+        int startPosition;
+        int endPosition;
+        int distance;
+        if (dy > 0) {
+            int lastRow = mLastAttachedRow;
+            if (lastRow + 1 < getCompleteRowCount()) {
+                startPosition = mLineBreaker.getRowStart(lastRow + 1);
+                endPosition = mLineBreaker.getRowEnd(lastRow + 1);
+            } else if (!mBreakFinished) {
+                // 下一行还没有确定，按最后一行的数量预取之后的子控件
+                startPosition = mLineBreaker.getRowEnd(lastRow);
+                endPosition = Math.min(startPosition + mLineBreaker.getRowItemCount(lastRow), state.getItemCount());
+            } else {
+                return;
+            }
+            distance = mLineBreaker.getRowTop(lastRow) + mLineBreaker.getRowHeight(lastRow) + mVerticalSpacing
+                    - (mScrollOffset + getLayoutHeight());
+        } else {
+            int row = mFirstAttachedRow - 1;
+            if (row < 0) return;
+            startPosition = mLineBreaker.getRowStart(row);
+            endPosition = mLineBreaker.getRowEnd(row);
+            distance = mScrollOffset - (mLineBreaker.getRowTop(row) + mLineBreaker.getRowHeight(row));
+        }
+        for (int i = startPosition; i < endPosition; i++) {
+            layoutPrefetchRegistry.addPosition(i, Math.max(0, distance));
+        }
+    }
+
+    @Override
+    public int computeVerticalScrollOffset(RecyclerView.State state) {
+        return mScrollOffset;
+    }
+
+    @Override
+    public int computeVerticalScrollExtent(RecyclerView.State state) {
+        return getHeight();
+    }
+
+    @Override
+    public int computeVerticalScrollRange(RecyclerView.State state) {
+        int contentHeight = mLineBreaker.getContentBottom() - getPaddingTop();
+        int breakEnd = mLineBreaker.getRowCount() == 0 ? 0 : mLineBreaker.getRowEnd(mLineBreaker.getRowCount() - 1);
+        if (!mBreakFinished && breakEnd > 0) {
+            // 还没有换行的部分按已经换行的部分估算
+            contentHeight = (int) ((long) contentHeight * state.getItemCount() / breakEnd);
+        }
+        return contentHeight + getPaddingTop() + getPaddingBottom();
+    }
+
+    /**
+     * 换行到指定的竖直位置（内容坐标）：一行在它之后的子控件都换行之后才是确定的，
+     * 需要继续换行直到正在换行的行开始于指定位置之后，并且已经包含指定的子控件位置
+     *
+     * @param bottom   竖直位置
+     * @param position 需要包含的子控件位置，{@link RecyclerView#NO_POSITION} 表示不需要
+     */
+    private void breakRows(RecyclerView.Recycler recycler, int itemCount, int bottom, int position) {
+        if (mBreakFinished) return;
+
+        int rowCount = mLineBreaker.getRowCount();
+        if (rowCount > 0 && mLineBreaker.getRowTop(rowCount - 1) >= bottom && mLineBreaker.getRowStart(rowCount - 1) > position) {
+            return;
+        }
+
+        Trace.beginSection(TRACE_TAG_BREAK);
+        try {
+            int i = mLineBreaker.beginAppend();
+            while (i < itemCount) {
+                View childView = obtainMeasuredView(recycler, i);
+                RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) childView.getLayoutParams();
+                int result = mLineBreaker.addItem(i, getDecoratedMeasuredWidth(childView), getDecoratedMeasuredHeight(childView),
+                        layoutParams.leftMargin, layoutParams.topMargin, layoutParams.rightMargin, layoutParams.bottomMargin);
+                if (result == FlowLineBreaker.RESULT_ROW_LIMIT) break;
+
+                i++;
+                if (result == FlowLineBreaker.RESULT_NEW_ROW && i - 1 > position) {
+                    // 刚刚开始的新行在指定位置之后时，之前的行都已经确定
+                    int lastRow = mLineBreaker.getRowCount() - 1;
+                    if (mLineBreaker.getRowTop(lastRow) + mLineBreaker.getRowHeight(lastRow) + mVerticalSpacing >= bottom) {
+                        break;
+                    }
+                }
+            }
+            mLineBreaker.endBreak();
+            mBreakFinished = i >= itemCount || mLineBreaker.isRowLimitReached();
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * 获取并测量换行用的子控件，测量之后保存起来，所在行需要显示时直接添加
+     */
+    private View obtainMeasuredView(RecyclerView.Recycler recycler, int position) {
+        View childView = recycler.getViewForPosition(position);
+        measureChildWithMargins(childView, 0, 0);
+        mMeasuredViews.put(position, childView);
+        return childView;
+    }
+
+    /**
+     * 换行时测量过、最后没有添加的子控件放回 RecyclerView 的缓存，同一位置再次使用时不需要重新绑定
+     */
+    private void recycleMeasuredViews(RecyclerView.Recycler recycler) {
+        for (int i = 0, size = mMeasuredViews.size(); i < size; i++) {
+            recycler.recycleView(mMeasuredViews.valueAt(i));
+        }
+        mMeasuredViews.clear();
+    }
+
+    /**
+     * 已经确定的行数：全部换行完成之前，最后一行还可能增加子控件
+     */
+    private int getCompleteRowCount() {
+        int rowCount = mLineBreaker.getRowCount();
+        return mBreakFinished ? rowCount : Math.max(0, rowCount - 1);
+    }
+
+    /**
+     * 移除不在可见区域内的行，添加进入可见区域的行，子控件按位置顺序添加
+     */
+    private void fillRows(RecyclerView.Recycler recycler, int itemCount) {
+        int completeRowCount = getCompleteRowCount();
+        int windowTop = mScrollOffset;
+        int windowBottom = mScrollOffset + getLayoutHeight();
+        int firstRow = mLineBreaker.findFirstRowBelow(windowTop);
+        int lastRow = Math.min(mLineBreaker.findRowForY(windowBottom - 1), completeRowCount - 1);
+        if (firstRow >= completeRowCount || mLineBreaker.getRowTop(firstRow) >= windowBottom) {
+            firstRow = 0;
+            lastRow = -1;
+        }
+
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            int position = getPosition(getChildAt(i));
+            int row = position < itemCount ? mLineBreaker.getItemRow(position) : FlowLineBreaker.NO_ROW;
+            if (row < firstRow || row > lastRow) {
+                removeAndRecycleViewAt(i, recycler);
+            }
+        }
+        if (getChildCount() == 0 || mFirstAttachedRow > lastRow || mLastAttachedRow < firstRow) {
+            // 之前的行都已经移除
+            for (int row = firstRow; row <= lastRow; row++) {
+                addRow(recycler, row, -1);
+            }
+        } else {
+            int index = 0;
+            for (int row = firstRow; row < mFirstAttachedRow; row++) {
+                index = addRow(recycler, row, index);
+            }
+            for (int row = mLastAttachedRow + 1; row <= lastRow; row++) {
+                addRow(recycler, row, -1);
+            }
+        }
+        mFirstAttachedRow = firstRow;
+        mLastAttachedRow = lastRow;
+    }
+
+    /**
+     * 添加一行的子控件，并按换行结果的尺寸精确测量和布局
+     *
+     * @param index 添加的索引，-1 表示添加到最后
+     * @return 下一个子控件的添加索引
+     */
+    private int addRow(RecyclerView.Recycler recycler, int row, int index) {
+        int indexInRow = 0;
+        for (int i = mLineBreaker.getRowStart(row), end = mLineBreaker.getRowEnd(row); i < end; i++) {
+            if (mLineBreaker.getItemRow(i) != row) continue;
+
+            View childView = mMeasuredViews.get(i);
+            if (childView != null) {
+                mMeasuredViews.remove(i);
+            } else {
+                childView = recycler.getViewForPosition(i);
+            }
+            if (index < 0) {
+                addView(childView);
+            } else {
+                addView(childView, index++);
+            }
+
+            int offsetX = mLineBreaker.getRowOffsetX(mHorizontalGravity, row, indexInRow++);
+            int left = mLineBreaker.getItemLeft(i) + offsetX;
+            int top = mLineBreaker.getItemTop(i) - mScrollOffset;
+            int right = mLineBreaker.getItemRight(i) + offsetX;
+            int bottom = mLineBreaker.getItemBottom(i) - mScrollOffset;
+            calculateItemDecorationsForChild(childView, mDecorInsets);
+            childView.measure(View.MeasureSpec.makeMeasureSpec(right - left - mDecorInsets.left - mDecorInsets.right, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(bottom - top - mDecorInsets.top - mDecorInsets.bottom, View.MeasureSpec.EXACTLY));
+            layoutDecorated(childView, left, top, right, bottom);
+        }
+        return index;
+    }
+
+    /**
+     * 最大滑动距离，需要已经全部换行
+     */
+    private int getMaxScrollOffset() {
+        return Math.max(0, mLineBreaker.getContentBottom() + getPaddingBottom() - getHeight());
+    }
+
+    /**
+     * 需要布局的高度：高度不确定（比如 RecyclerView 高度为 wrap_content 并且没有限制）时布局所有的行
+     */
+    private int getLayoutHeight() {
+        return getHeightMode() == View.MeasureSpec.UNSPECIFIED ? Integer.MAX_VALUE / 2 : getHeight();
+    }
+
+    private void markDirty(int position) {
+        if (mFirstDirtyPosition == NO_POSITION || position < mFirstDirtyPosition) {
+            mFirstDirtyPosition = position;
+        }
+    }
+
+    private int dip2px(float dpValue) {
+        final float scale = mContext.getResources().getDisplayMetrics().density;
+        return (int) (dpValue * scale + 0.5f);
+    }
+
+    /**
+     * 保存的状态：可见区域顶部所在行的第一个位置和相对这一行顶部的滑动距离
+     */
+    static class SavedState implements Parcelable {
+        int anchorPosition = NO_POSITION;
+        int anchorOffset;
+
+        SavedState() {
+        }
+
+        SavedState(Parcel source) {
+            anchorPosition = source.readInt();
+            anchorOffset = source.readInt();
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeInt(anchorPosition);
+            dest.writeInt(anchorOffset);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel source) {
+                return new SavedState(source);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+}
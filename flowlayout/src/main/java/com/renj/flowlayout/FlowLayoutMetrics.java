@@ -0,0 +1,187 @@
+package com.renj.flowlayout;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   17:20
+ * <p>
+ * 描述：{@link FlowLayout} 一次布局过程（从上一次 onLayout() 之后的所有 onMeasure() 到本次 onLayout()）的统计数据，
+ * 通过 {@link FlowLayout#setOnLayoutMetricsListener(FlowLayout.OnLayoutMetricsListener)} 回调。<br/>
+ * 对象会被复用，回调结束后内容会被重置，需要保存时复制需要的值。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public final class FlowLayoutMetrics {
+    /**
+     * 布局原因：父控件重新测量或者子控件自己请求了重新布局
+     */
+    public static final int TRIGGER_PARENT = 0;
+    /**
+     * 布局原因：修改了 {@link FlowLayout} 的属性（对齐方式、间距、最大行数等）
+     */
+    public static final int TRIGGER_CONFIG = 1;
+    /**
+     * 布局原因：更换了适配器或者适配器通知了数据改变
+     */
+    public static final int TRIGGER_ADAPTER = 2;
+
+    private int mTrigger = TRIGGER_PARENT;
+    private boolean mFullLayout;
+    private int mMeasurePassCount;
+    private int mMeasureCacheHitCount;
+    private long mMeasureTimeNanos;
+    private long mLayoutTimeNanos;
+    private int mCreateViewCount;
+    private int mBindViewCount;
+    private int mMeasureChildCount;
+    private int mRowCount;
+    private int mShownChildCount;
+    private int mItemCount;
+    private int mAttachedChildCount;
+
+    /**
+     * 布局原因，多个原因同时存在时取优先级最高的：{@link #TRIGGER_ADAPTER} > {@link #TRIGGER_CONFIG} > {@link #TRIGGER_PARENT}
+     */
+    public int getTrigger() {
+        return mTrigger;
+    }
+
+    /**
+     * 是否进行了完整布局（所有子控件重新换行），否则只从改变的位置开始重新换行或者没有重新换行
+     */
+    public boolean isFullLayout() {
+        return mFullLayout;
+    }
+
+    /**
+     * onMeasure() 调用次数，父控件可能会在一次布局中多次测量
+     */
+    public int getMeasurePassCount() {
+        return mMeasurePassCount;
+    }
+
+    /**
+     * onMeasure() 中直接使用缓存的尺寸、没有重新换行的次数（父控件用已经测量过的规格再次测量），包括在 {@link #getMeasurePassCount()} 中
+     */
+    public int getMeasureCacheHitCount() {
+        return mMeasureCacheHitCount;
+    }
+
+    /**
+     * 所有 onMeasure() 的总耗时（纳秒）
+     */
+    public long getMeasureTimeNanos() {
+        return mMeasureTimeNanos;
+    }
+
+    /**
+     * onLayout() 耗时（纳秒）
+     */
+    public long getLayoutTimeNanos() {
+        return mLayoutTimeNanos;
+    }
+
+    /**
+     * 适配器创建子控件（onCreateView() / createView()）的次数
+     */
+    public int getCreateViewCount() {
+        return mCreateViewCount;
+    }
+
+    /**
+     * 适配器绑定数据（onBindView()）的次数
+     */
+    public int getBindViewCount() {
+        return mBindViewCount;
+    }
+
+    /**
+     * 测量子控件（measureChild()）的次数，有缓存或者预先计算的尺寸时不需要测量
+     */
+    public int getMeasureChildCount() {
+        return mMeasureChildCount;
+    }
+
+    /**
+     * 布局完成后的行数
+     */
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * 显示的子控件数量（不超过最大行数并且不是 GONE 的）
+     */
+    public int getShownChildCount() {
+        return mShownChildCount;
+    }
+
+    /**
+     * 适配器的数据数量 {@link FlowLayoutAdapter#getItemCount()}
+     */
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    /**
+     * 实际添加到 {@link FlowLayout} 中的子控件数量，可见区域模式下只包括可见区域内的行
+     */
+    public int getAttachedChildCount() {
+        return mAttachedChildCount;
+    }
+
+    void addTrigger(int trigger) {
+        mTrigger = Math.max(mTrigger, trigger);
+    }
+
+    void onMeasureFinished(boolean fullLayout, long measureTimeNanos) {
+        mFullLayout |= fullLayout;
+        mMeasurePassCount++;
+        mMeasureTimeNanos += measureTimeNanos;
+    }
+
+    void onMeasureCacheHit() {
+        mMeasurePassCount++;
+        mMeasureCacheHitCount++;
+    }
+
+    void onCreateView() {
+        mCreateViewCount++;
+    }
+
+    void onBindView() {
+        mBindViewCount++;
+    }
+
+    void onMeasureChild() {
+        mMeasureChildCount++;
+    }
+
+    void onLayoutFinished(long layoutTimeNanos, int rowCount, int shownChildCount, int itemCount, int attachedChildCount) {
+        mLayoutTimeNanos = layoutTimeNanos;
+        mRowCount = rowCount;
+        mShownChildCount = shownChildCount;
+        mItemCount = itemCount;
+        mAttachedChildCount = attachedChildCount;
+    }
+
+    void reset() {
+        mTrigger = TRIGGER_PARENT;
+        mFullLayout = false;
+        mMeasurePassCount = 0;
+        mMeasureCacheHitCount = 0;
+        mMeasureTimeNanos = 0;
+        mLayoutTimeNanos = 0;
+        mCreateViewCount = 0;
+        mBindViewCount = 0;
+        mMeasureChildCount = 0;
+        mRowCount = 0;
+        mShownChildCount = 0;
+        mItemCount = 0;
+        mAttachedChildCount = 0;
+    }
+}
@@ -0,0 +1,166 @@
+package com.renj.flowlayout;
+
+import android.os.Parcel;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   23:20
+ * <p>
+ * 描述：{@link FlowLayout} 保存状态时的布局快照：子控件的测量尺寸和外边距、每一行的结束位置和行高，
+ * 以及计算时的内容宽度、子控件可用的最大尺寸、间距、最大行数、屏幕密度和数据集 hash。<br/>
+ * 恢复（旋转屏幕、进程被回收后重建）时这些条件都一致才使用，直接把测量尺寸写回，换行时不需要绑定和测量子控件，
+ * 换行结果和保存的行不一致时放弃快照重新测量。外边距都相同时只保存一份，控制快照的大小。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+final class FlowLayoutSnapshot {
+    /**
+     * 超过这个数量的子控件不保存快照（保存状态的数据大小有限制），恢复时重新测量
+     */
+    static final int MAX_ITEM_COUNT = 5000;
+
+    // 计算布局时的条件，恢复时需要完全一致
+    private final int[] mConditions;
+    private final int mItemCount;
+    private final long mItemSetHash;
+    private final int[] mRowEnds;
+    private final int[] mRowHeights;
+    // 连续测量过的子控件尺寸（从位置 0 开始），宽度为 FlowLineBreaker.GONE 表示不占位置
+    private final int[] mWidths;
+    private final int[] mHeights;
+    // 每个子控件左、上、右、下 4 个外边距；所有子控件都相同时只有 4 个值
+    private final int[] mMargins;
+
+    private FlowLayoutSnapshot(int[] conditions, int itemCount, long itemSetHash, int[] rowEnds, int[] rowHeights,
+                               int[] widths, int[] heights, int[] margins) {
+        this.mConditions = conditions;
+        this.mItemCount = itemCount;
+        this.mItemSetHash = itemSetHash;
+        this.mRowEnds = rowEnds;
+        this.mRowHeights = rowHeights;
+        this.mWidths = widths;
+        this.mHeights = heights;
+        this.mMargins = margins;
+    }
+
+    /**
+     * 保存当前的布局
+     *
+     * @param conditions  计算布局时的条件
+     * @param itemSetHash 数据集 hash
+     * @return 子控件数量超过 {@link #MAX_ITEM_COUNT} 时返回 {@code null}
+     */
+    static FlowLayoutSnapshot capture(FlowChildViewStore childViews, FlowLineBreaker lineBreaker,
+                                      int[] conditions, long itemSetHash) {
+        int itemCount = childViews.getItemCount();
+        if (itemCount > MAX_ITEM_COUNT) return null;
+
+        int measuredCount = 0;
+        while (measuredCount < itemCount && childViews.isMeasured(measuredCount)) {
+            measuredCount++;
+        }
+        int[] widths = new int[measuredCount];
+        int[] heights = new int[measuredCount];
+        int[] margins = new int[measuredCount * 4];
+        boolean sameMargins = true;
+        for (int i = 0; i < measuredCount; i++) {
+            widths[i] = childViews.isGone(i) ? FlowLineBreaker.GONE : childViews.getWidth(i);
+            heights[i] = childViews.getHeight(i);
+            margins[i * 4] = childViews.getLeftMargin(i);
+            margins[i * 4 + 1] = childViews.getTopMargin(i);
+            margins[i * 4 + 2] = childViews.getRightMargin(i);
+            margins[i * 4 + 3] = childViews.getBottomMargin(i);
+            if (i > 0 && sameMargins) {
+                sameMargins = margins[i * 4] == margins[0] && margins[i * 4 + 1] == margins[1]
+                        && margins[i * 4 + 2] == margins[2] && margins[i * 4 + 3] == margins[3];
+            }
+        }
+        if (sameMargins && measuredCount > 1) {
+            margins = new int[]{margins[0], margins[1], margins[2], margins[3]};
+        }
+
+        int rowCount = lineBreaker.getRowCount();
+        int[] rowEnds = new int[rowCount];
+        int[] rowHeights = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            rowEnds[row] = lineBreaker.getRowEnd(row);
+            rowHeights[row] = lineBreaker.getRowHeight(row);
+        }
+        return new FlowLayoutSnapshot(conditions, itemCount, itemSetHash, rowEnds, rowHeights, widths, heights, margins);
+    }
+
+    /**
+     * 计算条件和数据集是否和保存时一致
+     */
+    boolean matches(int[] conditions, int itemCount, long itemSetHash) {
+        if (mItemCount != itemCount || mItemSetHash != itemSetHash || mConditions.length != conditions.length) {
+            return false;
+        }
+        for (int i = 0; i < conditions.length; i++) {
+            if (mConditions[i] != conditions[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 把保存的测量尺寸写回，这些位置换行时不再需要测量
+     */
+    void restoreMeasuredSizes(FlowChildViewStore childViews) {
+        int[] itemSize = new int[FlowMeasureCache.SIZE];
+        boolean sameMargins = mMargins.length == 4;
+        for (int i = 0; i < mWidths.length; i++) {
+            int marginIndex = sameMargins ? 0 : i * 4;
+            boolean gone = mWidths[i] == FlowLineBreaker.GONE;
+            itemSize[FlowMeasureCache.WIDTH] = gone ? 0 : mWidths[i];
+            itemSize[FlowMeasureCache.HEIGHT] = mHeights[i];
+            itemSize[FlowMeasureCache.LEFT_MARGIN] = mMargins[marginIndex];
+            itemSize[FlowMeasureCache.TOP_MARGIN] = mMargins[marginIndex + 1];
+            itemSize[FlowMeasureCache.RIGHT_MARGIN] = mMargins[marginIndex + 2];
+            itemSize[FlowMeasureCache.BOTTOM_MARGIN] = mMargins[marginIndex + 3];
+            itemSize[FlowMeasureCache.GONE] = gone ? 1 : 0;
+            childViews.setMeasuredSize(i, itemSize);
+        }
+    }
+
+    /**
+     * 换行结果是否和保存的行一致
+     */
+    boolean matchesRows(FlowLineBreaker lineBreaker) {
+        if (lineBreaker.getRowCount() != mRowEnds.length) return false;
+
+        for (int row = 0; row < mRowEnds.length; row++) {
+            if (lineBreaker.getRowEnd(row) != mRowEnds[row] || lineBreaker.getRowHeight(row) != mRowHeights[row]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void writeToParcel(Parcel dest) {
+        dest.writeIntArray(mConditions);
+        dest.writeInt(mItemCount);
+        dest.writeLong(mItemSetHash);
+        dest.writeIntArray(mRowEnds);
+        dest.writeIntArray(mRowHeights);
+        dest.writeIntArray(mWidths);
+        dest.writeIntArray(mHeights);
+        dest.writeIntArray(mMargins);
+    }
+
+    static FlowLayoutSnapshot readFromParcel(Parcel source) {
+        int[] conditions = source.createIntArray();
+        int itemCount = source.readInt();
+        long itemSetHash = source.readLong();
+        int[] rowEnds = source.createIntArray();
+        int[] rowHeights = source.createIntArray();
+        int[] widths = source.createIntArray();
+        int[] heights = source.createIntArray();
+        int[] margins = source.createIntArray();
+        return new FlowLayoutSnapshot(conditions, itemCount, itemSetHash, rowEnds, rowHeights, widths, heights, margins);
+    }
+}
@@ -0,0 +1,948 @@
+package com.renj.flowlayout;
+
+import java.util.Arrays;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   16:05
+ * <p>
+ * 描述：流式布局换行计算引擎。<br/>
+ * 只依赖 Java 基本类型，不依赖 Android 的 {@code View}，可以在 JVM 上测试，也可以在非 UI 线程中使用。<br/>
+ * 输入每个子控件的宽高和外边距，计算结果（每一行的开始/结束位置、顶部位置、行高、已使用宽度，
+ * 每个子控件的坐标和所在行）写入可复用的 int 数组中，数组容量足够后换行过程不会再分配内存。<br/>
+ * 支持两种使用方式：<br/>
+ * 1. 一次性计算：{@link #breakLines(int, int[], int[], int[])}；<br/>
+ * 2. 逐个添加：{@link #beginBreak(int, int)} -> {@link #addItem(int, int, int, int, int, int, int)}/{@link #skipItem(int)}
+ * -> {@link #endBreak()}，适合边测量边换行，并且可以只从某一行开始重新换行、复用后面没有改变的行。<br/>
+ * 注意：这个类不是线程安全的，同一个对象只能在一个线程中使用。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public final class FlowLineBreaker {
+    /**
+     * 居左对齐，和 {@link FlowLayout#HORIZONTAL_GRAVITY_LEFT} 一致
+     */
+    public static final int GRAVITY_LEFT = 0;
+    /**
+     * 居右对齐，和 {@link FlowLayout#HORIZONTAL_GRAVITY_RIGHT} 一致
+     */
+    public static final int GRAVITY_RIGHT = 1;
+    /**
+     * 左右对齐，和 {@link FlowLayout#HORIZONTAL_GRAVITY_LEFT_RIGHT} 一致
+     */
+    public static final int GRAVITY_LEFT_RIGHT = 2;
+    /**
+     * 居中对齐，和 {@link FlowLayout#HORIZONTAL_GRAVITY_CENTER} 一致
+     */
+    public static final int GRAVITY_CENTER = 3;
+
+    /**
+     * 一次性计算时，宽度为这个值的子控件不占位置（相当于 {@code View.GONE}）
+     */
+    public static final int GONE = -1;
+    /**
+     * 子控件不在任何一行中（不占位置或者超过最大行数没有显示）
+     */
+    public static final int NO_ROW = -1;
+
+    /**
+     * {@link #addItem(int, int, int, int, int, int, int)} 返回值：添加到了当前行
+     */
+    public static final int RESULT_ADDED = 0;
+    /**
+     * {@link #addItem(int, int, int, int, int, int, int)} 返回值：上一行结束了，子控件添加到了新的一行
+     */
+    public static final int RESULT_NEW_ROW = 1;
+    /**
+     * {@link #addItem(int, int, int, int, int, int, int)} 返回值：上一行结束了并且达到了最大行数，
+     * 子控件和之后的子控件都不显示，换行结束
+     */
+    public static final int RESULT_ROW_LIMIT = 2;
+    /**
+     * {@link #addItem(int, int, int, int, int, int, int)} 返回值：上一行结束了，新的一行和之前的换行结果一样，
+     * 直接复用了之前的行（只调整了位置），换行结束
+     */
+    public static final int RESULT_ROWS_REUSED = 3;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int mContentWidth; // 内容宽度
+    private int mHorizontalSpacing; // 水平方向间距
+    private int mVerticalSpacing; // 竖直方向间距
+    private int mMaxRowCount = Integer.MAX_VALUE; // 最大行数
+    private int mOriginX; // 内容左边位置（paddingLeft）
+    private int mOriginY; // 内容顶部位置（paddingTop）
+
+    // 子控件信息，索引为子控件位置
+    private int mItemCount;
+    private int[] mItemLeft = new int[0];
+    private int[] mItemTop = new int[0];
+    private int[] mItemRight = new int[0];
+    private int[] mItemBottom = new int[0];
+    private int[] mItemRow = new int[0];
+    private int mPlacedItemCount; // 在行中的子控件数量
+
+    // 行信息，索引为行索引
+    private int mRowCount;
+    private int[] mRowStart = new int[0]; // 行内第一个子控件位置
+    private int[] mRowEnd = new int[0]; // 行内最后一个子控件位置 + 1
+    private int[] mRowTop = new int[0]; // 行顶部位置（包含 mOriginY）
+    private int[] mRowHeight = new int[0]; // 行高
+    private int[] mRowUsedWidth = new int[0]; // 行已使用宽度
+    private int[] mRowItemCount = new int[0]; // 行内子控件数量
+
+    // 重新换行时的旧行信息，用于复用。旧行仍然保存在行信息数组中，只有在即将被新行覆盖之前才复制到下面的数组中
+    private int mOldRowCount; // 开始行之后（包括）的旧行数量
+    private int mOldFirstRow; // 第一个旧行原来的行索引
+    private int mOldBackupCount; // 已经复制的旧行数量，索引小于这个值的旧行从下面的数组中读取
+    private int mOldRowCursor; // 查找可以复用的旧行的当前索引，新行和旧行的开始位置都是递增的，只需要向后查找
+    private int mOldPlacedItemCount; // 所有旧行中的子控件数量
+    private int mOldSkippedItemCount; // 查找时跳过的旧行中的子控件数量
+    private int[] mOldRowStart = new int[0];
+    private int[] mOldRowEnd = new int[0];
+    private int[] mOldRowTop = new int[0];
+    private int[] mOldRowHeight = new int[0];
+    private int[] mOldRowUsedWidth = new int[0];
+    private int[] mOldRowItemCount = new int[0];
+
+    // 正在换行的当前行
+    private int mCurrentRowStart;
+    private int mCurrentRowEnd;
+    private int mCurrentRowItemCount;
+    private int mCurrentRowWidth;
+    private int mCurrentRowHeight;
+    private int mCurrentRowTop;
+    private int mReuseFromPosition = Integer.MAX_VALUE; // 从这个位置开始（包括）可以复用旧行
+    private boolean mFinished; // 是否已经提前结束（达到最大行数或者复用了旧行）
+    private boolean mRowLimitReached; // 最近一次换行是否因为达到最大行数而结束，之后的子控件都不显示
+
+    // 所有子控件尺寸相同时（见 breakUniform()）的尺寸和每行子控件数量，子控件位置按这些值计算，不使用子控件信息数组
+    private int mUniformWidth = -1;
+    private int mUniformHeight;
+    private int mUniformItemsPerRow;
+
+    /**
+     * 设置内容宽度（控件宽度减去左右 padding）
+     */
+    public void setContentWidth(int contentWidth) {
+        this.mContentWidth = contentWidth;
+    }
+
+    public int getContentWidth() {
+        return mContentWidth;
+    }
+
+    /**
+     * 设置子控件之间的间距
+     *
+     * @param horizontalSpacing 水平方向间距 px
+     * @param verticalSpacing   竖直方向间距 px
+     */
+    public void setSpacing(int horizontalSpacing, int verticalSpacing) {
+        this.mHorizontalSpacing = horizontalSpacing;
+        this.mVerticalSpacing = verticalSpacing;
+    }
+
+    /**
+     * 设置最大行数
+     *
+     * @param maxRowCount 最大行数，小于0表示不限制
+     */
+    public void setMaxRowCount(int maxRowCount) {
+        this.mMaxRowCount = maxRowCount < 0 ? Integer.MAX_VALUE : maxRowCount;
+    }
+
+    /**
+     * 设置内容的左上角位置，一般为 paddingLeft 和 paddingTop，计算出的坐标都包含这个偏移
+     */
+    public void setOrigin(int originX, int originY) {
+        this.mOriginX = originX;
+        this.mOriginY = originY;
+    }
+
+    public int getOriginX() {
+        return mOriginX;
+    }
+
+    public int getOriginY() {
+        return mOriginY;
+    }
+
+    /**
+     * 设置子控件数量，之前的换行结果全部失效，需要调用 {@link #beginBreak(int, int)} 从第 0 行开始重新换行
+     */
+    public void setItemCount(int itemCount) {
+        ensureItemCapacity(itemCount);
+        mItemCount = itemCount;
+        mRowCount = 0;
+        mPlacedItemCount = 0;
+        mRowLimitReached = false;
+    }
+
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    /**
+     * 只保留前面的行，之后的行全部丢弃，同时设置新的子控件数量（改变的位置都需要在保留的行之后）。
+     * 之后调用 {@link #beginAppend()} 从保留的最后一行继续换行
+     *
+     * @param rowCount  保留的行数
+     * @param itemCount 子控件数量
+     */
+    public void truncateRows(int rowCount, int itemCount) {
+        if (mUniformWidth >= 0) {
+            // 按统一尺寸计算时没有保存子控件位置，不能保留
+            mUniformWidth = -1;
+            rowCount = 0;
+        }
+        ensureItemCapacity(itemCount);
+        mItemCount = itemCount;
+        mRowCount = Math.max(0, Math.min(rowCount, mRowCount));
+        mPlacedItemCount = 0;
+        for (int row = 0; row < mRowCount; row++) {
+            mPlacedItemCount += mRowItemCount[row];
+        }
+        mRowLimitReached = false;
+        clearItemRows(mRowCount == 0 ? 0 : mRowEnd[mRowCount - 1]);
+    }
+
+    /**
+     * 插入了子控件，之后的子控件位置和行的开始/结束位置后移，插入的子控件不在任何一行中
+     */
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        ensureItemCapacity(mItemCount + itemCount);
+        int moveCount = mItemCount - positionStart;
+        int to = positionStart + itemCount;
+        System.arraycopy(mItemLeft, positionStart, mItemLeft, to, moveCount);
+        System.arraycopy(mItemTop, positionStart, mItemTop, to, moveCount);
+        System.arraycopy(mItemRight, positionStart, mItemRight, to, moveCount);
+        System.arraycopy(mItemBottom, positionStart, mItemBottom, to, moveCount);
+        System.arraycopy(mItemRow, positionStart, mItemRow, to, moveCount);
+        Arrays.fill(mItemRow, positionStart, to, NO_ROW);
+        mItemCount += itemCount;
+
+        for (int row = mRowCount - 1; row >= 0 && mRowEnd[row] > positionStart; row--) {
+            mRowEnd[row] += itemCount;
+            if (mRowStart[row] >= positionStart) {
+                mRowStart[row] += itemCount;
+            }
+        }
+    }
+
+    /**
+     * 移除了子控件，之后的子控件位置和行的开始/结束位置前移。
+     * 第一个子控件被移除的行，开始和结束位置都变为 positionStart（空行），重新换行时不会被复用
+     */
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        int positionEnd = positionStart + itemCount;
+        for (int i = positionStart; i < positionEnd; i++) {
+            int row = getItemRow(i);
+            if (row != NO_ROW && row < mRowCount) {
+                mRowItemCount[row]--;
+                mPlacedItemCount--;
+            }
+        }
+        int moveCount = mItemCount - positionEnd;
+        System.arraycopy(mItemLeft, positionEnd, mItemLeft, positionStart, moveCount);
+        System.arraycopy(mItemTop, positionEnd, mItemTop, positionStart, moveCount);
+        System.arraycopy(mItemRight, positionEnd, mItemRight, positionStart, moveCount);
+        System.arraycopy(mItemBottom, positionEnd, mItemBottom, positionStart, moveCount);
+        System.arraycopy(mItemRow, positionEnd, mItemRow, positionStart, moveCount);
+        mItemCount -= itemCount;
+
+        for (int row = mRowCount - 1; row >= 0 && mRowEnd[row] > positionStart; row--) {
+            if (mRowStart[row] >= positionEnd) {
+                mRowStart[row] -= itemCount;
+                mRowEnd[row] -= itemCount;
+            } else if (mRowStart[row] >= positionStart) {
+                mRowStart[row] = positionStart;
+                mRowEnd[row] = positionStart;
+            } else {
+                mRowEnd[row] = Math.max(positionStart, mRowEnd[row] - itemCount);
+            }
+        }
+    }
+
+    /**
+     * 子控件位置移动了，只移动子控件信息，两个位置之间的行需要重新换行
+     */
+    public void onItemMoved(int fromPosition, int toPosition) {
+        moveItem(mItemLeft, fromPosition, toPosition);
+        moveItem(mItemTop, fromPosition, toPosition);
+        moveItem(mItemRight, fromPosition, toPosition);
+        moveItem(mItemBottom, fromPosition, toPosition);
+        moveItem(mItemRow, fromPosition, toPosition);
+    }
+
+    private static void moveItem(int[] array, int fromPosition, int toPosition) {
+        int value = array[fromPosition];
+        if (fromPosition < toPosition) {
+            System.arraycopy(array, fromPosition + 1, array, fromPosition, toPosition - fromPosition);
+        } else {
+            System.arraycopy(array, toPosition, array, toPosition + 1, fromPosition - toPosition);
+        }
+        array[toPosition] = value;
+    }
+
+    /**
+     * 开始换行，指定行之前的行保持不变。
+     *
+     * @param startRow          开始换行的行索引，需要小于等于当前行数
+     * @param reuseFromPosition 从这个位置开始（包括）子控件没有改变，新的一行从这里开始并且之前也是某一行的开始时，
+     *                          直接复用之前的行；{@link Integer#MAX_VALUE} 表示不复用
+     * @return 第一个需要添加的子控件位置
+     */
+    public int beginBreak(int startRow, int reuseFromPosition) {
+        if (mUniformWidth >= 0) {
+            // 之前按统一尺寸计算的子控件位置没有保存在数组中，需要从第 0 行开始
+            mUniformWidth = -1;
+            startRow = 0;
+        }
+        startRow = Math.max(0, Math.min(startRow, mRowCount));
+        int startPosition = startRow == 0 ? 0 : mRowStart[startRow];
+        if (startRow < mRowCount) {
+            mCurrentRowTop = mRowTop[startRow];
+        } else if (startRow > 0) {
+            mCurrentRowTop = mRowTop[startRow - 1] + mRowHeight[startRow - 1] + mVerticalSpacing;
+            startPosition = mRowEnd[startRow - 1];
+        } else {
+            mCurrentRowTop = mOriginY;
+        }
+
+        // 开始行之后的旧行，设置了最大行数时不能复用，行数改变会影响后面的子控件是否显示
+        mReuseFromPosition = mMaxRowCount == Integer.MAX_VALUE ? reuseFromPosition : Integer.MAX_VALUE;
+        mOldFirstRow = startRow;
+        mOldRowCount = mReuseFromPosition == Integer.MAX_VALUE ? 0 : mRowCount - startRow;
+        mOldBackupCount = 0;
+        mOldRowCursor = 0;
+        mOldSkippedItemCount = 0;
+        mOldPlacedItemCount = 0;
+        for (int row = startRow; row < mRowCount; row++) {
+            mOldPlacedItemCount += mRowItemCount[row];
+        }
+        mPlacedItemCount -= mOldPlacedItemCount;
+        mRowCount = startRow;
+
+        mCurrentRowItemCount = 0;
+        mCurrentRowWidth = 0;
+        mCurrentRowHeight = 0;
+        mFinished = startRow >= mMaxRowCount;
+        mRowLimitReached = mFinished;
+        if (mFinished) {
+            clearItemRows(startPosition);
+        }
+        return startPosition;
+    }
+
+    /**
+     * 开始在末尾追加子控件：重新打开最后一行（保留它的宽度、高度和子控件数量），只需要添加最后一行之后的子控件。
+     * 调用前最后一行之后的子控件都不能在任何一行中（比如通过 {@link #onItemRangeInserted(int, int)} 在末尾插入的）。
+     * 上一次换行因为达到最大行数而结束时，追加的子控件都不显示，直接结束。
+     *
+     * @return 第一个需要添加的子控件位置，之后调用 {@link #addItem(int, int, int, int, int, int, int)} 和 {@link #endBreak()}
+     */
+    public int beginAppend() {
+        if (mRowCount == 0 || mUniformWidth >= 0) {
+            return beginBreak(0, Integer.MAX_VALUE);
+        }
+
+        mReuseFromPosition = Integer.MAX_VALUE;
+        mOldFirstRow = mRowCount;
+        mOldRowCount = 0;
+        mOldBackupCount = 0;
+        mOldRowCursor = 0;
+        mOldSkippedItemCount = 0;
+        mOldPlacedItemCount = 0;
+        if (mRowLimitReached) {
+            mFinished = true;
+            return mItemCount;
+        }
+
+        int lastRow = mRowCount - 1;
+        mCurrentRowStart = mRowStart[lastRow];
+        mCurrentRowEnd = mRowEnd[lastRow];
+        mCurrentRowTop = mRowTop[lastRow];
+        mCurrentRowHeight = mRowHeight[lastRow];
+        mCurrentRowWidth = mRowUsedWidth[lastRow];
+        mCurrentRowItemCount = mRowItemCount[lastRow];
+        mPlacedItemCount -= mCurrentRowItemCount;
+        mRowCount = lastRow;
+        mFinished = false;
+        return mCurrentRowEnd;
+    }
+
+    /**
+     * 所有子控件尺寸相同（没有外边距、没有不占位置的子控件）时直接按行计算换行结果，不需要逐个添加子控件。<br/>
+     * 每行子控件数量、行数都由算术计算得出，只需要填充行信息（O(行数)），子控件的位置在获取时计算。
+     * 之后调用 {@link #beginBreak(int, int)} 时恢复为逐个添加子控件，并且从第 0 行开始
+     *
+     * @param width  子控件宽度
+     * @param height 子控件高度
+     */
+    public void breakUniform(int width, int height) {
+        mUniformWidth = Math.max(0, width);
+        mUniformHeight = Math.max(0, height);
+        // 一行 n 个子控件的宽度为 n * width + (n - 1) * spacing，每行至少一个
+        int cellWidth = mUniformWidth + mHorizontalSpacing;
+        mUniformItemsPerRow = cellWidth > 0 ? Math.max(1, (mContentWidth + mHorizontalSpacing) / cellWidth) : Math.max(1, mItemCount);
+
+        int rowCount = (mItemCount + mUniformItemsPerRow - 1) / mUniformItemsPerRow;
+        mRowLimitReached = rowCount > mMaxRowCount;
+        if (mRowLimitReached) {
+            rowCount = mMaxRowCount;
+        }
+        ensureRowCapacity(rowCount);
+        int rowTop = mOriginY;
+        for (int row = 0; row < rowCount; row++) {
+            int rowStart = row * mUniformItemsPerRow;
+            int rowEnd = Math.min(rowStart + mUniformItemsPerRow, mItemCount);
+            mRowStart[row] = rowStart;
+            mRowEnd[row] = rowEnd;
+            mRowItemCount[row] = rowEnd - rowStart;
+            mRowUsedWidth[row] = (rowEnd - rowStart) * cellWidth - mHorizontalSpacing;
+            mRowTop[row] = rowTop;
+            mRowHeight[row] = mUniformHeight;
+            rowTop += mUniformHeight + mVerticalSpacing;
+        }
+        mRowCount = rowCount;
+        mPlacedItemCount = rowCount == 0 ? 0 : mRowEnd[rowCount - 1];
+        mOldRowCount = 0;
+        mFinished = false;
+    }
+
+    /**
+     * 按统一尺寸计算时每行的子控件数量
+     *
+     * @return 没有按统一尺寸计算时返回 0
+     */
+    public int getUniformItemsPerRow() {
+        return mUniformWidth >= 0 ? mUniformItemsPerRow : 0;
+    }
+
+    /**
+     * 最近一次换行是否因为达到最大行数而结束
+     */
+    public boolean isRowLimitReached() {
+        return mRowLimitReached;
+    }
+
+    /**
+     * 添加一个子控件。<br/>
+     * 当前行还没有子控件时，即使宽度超过内容宽度也放在当前行（单独占一行），不会先产生一个空行
+     * （原来 onMeasure() 中的换行在第一个子控件就超宽时会多出一个空行，行高为这个子控件的高度）。
+     *
+     * @param position 子控件位置，需要按顺序添加
+     * @return {@link #RESULT_ADDED}、{@link #RESULT_NEW_ROW}、{@link #RESULT_ROW_LIMIT}、{@link #RESULT_ROWS_REUSED}，
+     * 返回后两个值时换行已经结束，不需要再添加后面的子控件
+     */
+    public int addItem(int position, int width, int height,
+                       int leftMargin, int topMargin, int rightMargin, int bottomMargin) {
+        if (mFinished) {
+            return RESULT_ROW_LIMIT;
+        }
+
+        int usedWidth = width + leftMargin + rightMargin;
+        int usedHeight = height + topMargin + bottomMargin;
+        int result = RESULT_ADDED;
+        // 换行，当前行至少有一个子控件时才换行
+        if (mCurrentRowItemCount > 0 && mCurrentRowWidth + mHorizontalSpacing + usedWidth > mContentWidth) {
+            closeRow();
+            // 显示最大行数控制，超过最大行数的子控件不显示
+            if (mRowCount >= mMaxRowCount) {
+                mFinished = true;
+                mRowLimitReached = true;
+                clearItemRows(position);
+                return RESULT_ROW_LIMIT;
+            }
+            // 后面的换行结果和之前一样，直接复用之前的行
+            if (position >= mReuseFromPosition && reuseOldRows(position)) {
+                mFinished = true;
+                return RESULT_ROWS_REUSED;
+            }
+            result = RESULT_NEW_ROW;
+        }
+
+        // 除了每行的第一个，后面的子控件都在前边加上一个水平间距
+        if (mCurrentRowItemCount == 0) {
+            mCurrentRowStart = position;
+        } else {
+            mCurrentRowWidth += mHorizontalSpacing;
+        }
+        mCurrentRowWidth += usedWidth;
+        // 取一行最大高度为行高
+        mCurrentRowHeight = Math.max(mCurrentRowHeight, usedHeight);
+        mCurrentRowItemCount++;
+        mCurrentRowEnd = position + 1;
+
+        // 确定当前子控件所在的位置
+        mItemRow[position] = mRowCount;
+        mItemRight[position] = mOriginX + mCurrentRowWidth - rightMargin;
+        mItemLeft[position] = mItemRight[position] - width;
+        mItemTop[position] = mCurrentRowTop + topMargin;
+        mItemBottom[position] = mItemTop[position] + height;
+        return result;
+    }
+
+    /**
+     * 跳过不占位置的子控件（{@code View.GONE}）
+     */
+    public void skipItem(int position) {
+        mItemRow[position] = NO_ROW;
+    }
+
+    /**
+     * 结束换行，当前行有子控件时作为最后一行
+     *
+     * @return true：增加了最后一行  false：没有增加行
+     */
+    public boolean endBreak() {
+        if (mFinished || mCurrentRowItemCount == 0) {
+            mFinished = false;
+            return false;
+        }
+        closeRow();
+        return true;
+    }
+
+    /**
+     * 一次性计算所有子控件的换行结果
+     *
+     * @param itemCount 子控件数量
+     * @param widths    子控件宽度，{@link #GONE} 表示不占位置
+     * @param heights   子控件高度
+     * @param margins   子控件外边距，每个子控件依次为左、上、右、下 4 个值，为 {@code null} 时没有外边距
+     * @return 行数
+     */
+    public int breakLines(int itemCount, int[] widths, int[] heights, int[] margins) {
+        setItemCount(itemCount);
+        int startPosition = beginBreak(0, Integer.MAX_VALUE);
+        for (int i = startPosition; i < itemCount; i++) {
+            if (widths[i] == GONE) {
+                skipItem(i);
+                continue;
+            }
+            int result = margins == null
+                    ? addItem(i, widths[i], heights[i], 0, 0, 0, 0)
+                    : addItem(i, widths[i], heights[i], margins[i * 4], margins[i * 4 + 1], margins[i * 4 + 2], margins[i * 4 + 3]);
+            if (result == RESULT_ROW_LIMIT) {
+                break;
+            }
+        }
+        endBreak();
+        return mRowCount;
+    }
+
+    private void closeRow() {
+        ensureRowCapacity(mRowCount + 1);
+        backupOldRows(mRowCount - mOldFirstRow);
+        mRowStart[mRowCount] = mCurrentRowStart;
+        mRowEnd[mRowCount] = mCurrentRowEnd;
+        mRowTop[mRowCount] = mCurrentRowTop;
+        mRowHeight[mRowCount] = mCurrentRowHeight;
+        mRowUsedWidth[mRowCount] = mCurrentRowWidth;
+        mRowItemCount[mRowCount] = mCurrentRowItemCount;
+        mRowCount++;
+        mPlacedItemCount += mCurrentRowItemCount;
+
+        // 增加上一行高度和竖直方向上的间距
+        mCurrentRowTop += mCurrentRowHeight + mVerticalSpacing;
+        mCurrentRowItemCount = 0;
+        mCurrentRowWidth = 0;
+        mCurrentRowHeight = 0;
+    }
+
+    /**
+     * 新行即将覆盖旧行，将指定索引之前（包括）还没有复制的旧行复制出来
+     *
+     * @param oldIndex 即将被覆盖的旧行索引
+     */
+    private void backupOldRows(int oldIndex) {
+        if (mOldBackupCount > oldIndex || mOldBackupCount >= mOldRowCount) return;
+
+        int count = Math.min(oldIndex + 1, mOldRowCount) - mOldBackupCount;
+        int capacity = mOldBackupCount + count;
+        mOldRowStart = ensureCapacity(mOldRowStart, capacity, true);
+        mOldRowEnd = ensureCapacity(mOldRowEnd, capacity, true);
+        mOldRowTop = ensureCapacity(mOldRowTop, capacity, true);
+        mOldRowHeight = ensureCapacity(mOldRowHeight, capacity, true);
+        mOldRowUsedWidth = ensureCapacity(mOldRowUsedWidth, capacity, true);
+        mOldRowItemCount = ensureCapacity(mOldRowItemCount, capacity, true);
+        int from = mOldFirstRow + mOldBackupCount;
+        System.arraycopy(mRowStart, from, mOldRowStart, mOldBackupCount, count);
+        System.arraycopy(mRowEnd, from, mOldRowEnd, mOldBackupCount, count);
+        System.arraycopy(mRowTop, from, mOldRowTop, mOldBackupCount, count);
+        System.arraycopy(mRowHeight, from, mOldRowHeight, mOldBackupCount, count);
+        System.arraycopy(mRowUsedWidth, from, mOldRowUsedWidth, mOldBackupCount, count);
+        System.arraycopy(mRowItemCount, from, mOldRowItemCount, mOldBackupCount, count);
+        mOldBackupCount += count;
+    }
+
+    private int getOldRowStart(int oldIndex) {
+        return oldIndex < mOldBackupCount ? mOldRowStart[oldIndex] : mRowStart[mOldFirstRow + oldIndex];
+    }
+
+    private int getOldRowEnd(int oldIndex) {
+        return oldIndex < mOldBackupCount ? mOldRowEnd[oldIndex] : mRowEnd[mOldFirstRow + oldIndex];
+    }
+
+    private int getOldRowItemCount(int oldIndex) {
+        return oldIndex < mOldBackupCount ? mOldRowItemCount[oldIndex] : mRowItemCount[mOldFirstRow + oldIndex];
+    }
+
+    /**
+     * 复用以指定位置开始的旧行和之后的所有旧行。
+     * 还没有被覆盖的旧行直接在数组中整体移动（行数不变时不需要移动），已经复制出来的旧行再复制回去
+     *
+     * @return true：复用成功  false：指定位置之前不是某一行的开始，不能复用
+     */
+    private boolean reuseOldRows(int position) {
+        int oldIndex = mOldRowCursor;
+        while (oldIndex < mOldRowCount && getOldRowStart(oldIndex) < position) {
+            mOldSkippedItemCount += getOldRowItemCount(oldIndex);
+            oldIndex++;
+        }
+        // 开始位置相同的行中，除了一个有效的行，其他都是第一个子控件被移除的空行
+        while (oldIndex < mOldRowCount && getOldRowStart(oldIndex) == position && getOldRowEnd(oldIndex) == position) {
+            mOldSkippedItemCount += getOldRowItemCount(oldIndex);
+            oldIndex++;
+        }
+        mOldRowCursor = oldIndex;
+        if (oldIndex == mOldRowCount || getOldRowStart(oldIndex) != position) {
+            return false;
+        }
+
+        int firstRow = mRowCount;
+        int reuseCount = mOldRowCount - oldIndex;
+        ensureRowCapacity(firstRow + reuseCount);
+        // 还在原来位置的旧行整体移动
+        int inPlaceIndex = Math.max(oldIndex, mOldBackupCount);
+        int inPlaceCount = mOldRowCount - inPlaceIndex;
+        int from = mOldFirstRow + inPlaceIndex;
+        int to = firstRow + inPlaceIndex - oldIndex;
+        if (inPlaceCount > 0 && from != to) {
+            System.arraycopy(mRowStart, from, mRowStart, to, inPlaceCount);
+            System.arraycopy(mRowEnd, from, mRowEnd, to, inPlaceCount);
+            System.arraycopy(mRowTop, from, mRowTop, to, inPlaceCount);
+            System.arraycopy(mRowHeight, from, mRowHeight, to, inPlaceCount);
+            System.arraycopy(mRowUsedWidth, from, mRowUsedWidth, to, inPlaceCount);
+            System.arraycopy(mRowItemCount, from, mRowItemCount, to, inPlaceCount);
+        }
+        // 已经复制出来的旧行复制回去
+        int backupCount = inPlaceIndex - oldIndex;
+        if (backupCount > 0) {
+            System.arraycopy(mOldRowStart, oldIndex, mRowStart, firstRow, backupCount);
+            System.arraycopy(mOldRowEnd, oldIndex, mRowEnd, firstRow, backupCount);
+            System.arraycopy(mOldRowTop, oldIndex, mRowTop, firstRow, backupCount);
+            System.arraycopy(mOldRowHeight, oldIndex, mRowHeight, firstRow, backupCount);
+            System.arraycopy(mOldRowUsedWidth, oldIndex, mRowUsedWidth, firstRow, backupCount);
+            System.arraycopy(mOldRowItemCount, oldIndex, mRowItemCount, firstRow, backupCount);
+        }
+        mRowCount = firstRow + reuseCount;
+        mPlacedItemCount += mOldPlacedItemCount - mOldSkippedItemCount;
+
+        // 位置或者行索引改变时，调整行和子控件的位置
+        int offsetY = mCurrentRowTop - mRowTop[firstRow];
+        if (offsetY != 0 || firstRow != mOldFirstRow + oldIndex) {
+            for (int row = firstRow; row < mRowCount; row++) {
+                mRowTop[row] += offsetY;
+                for (int p = mRowStart[row]; p < mRowEnd[row]; p++) {
+                    if (mItemRow[p] == NO_ROW) continue;
+                    mItemRow[p] = row;
+                    mItemTop[p] += offsetY;
+                    mItemBottom[p] += offsetY;
+                }
+            }
+        }
+        mOldRowCount = 0;
+        return true;
+    }
+
+    /**
+     * 指定位置之后（包括）的子控件都不在任何一行中
+     */
+    private void clearItemRows(int fromPosition) {
+        if (fromPosition < mItemCount) {
+            Arrays.fill(mItemRow, fromPosition, mItemCount, NO_ROW);
+        }
+    }
+
+    /**
+     * 查找指定位置的子控件所在的行，子控件不在任何一行中时，返回开始位置在它之前的最后一行
+     *
+     * @param position 位置
+     * @return 行索引，没有任何行时返回 0
+     */
+    public int findRowForPosition(int position) {
+        int low = 0;
+        int high = mRowCount - 1;
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mRowStart[mid] <= position) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查找顶部位置小于等于指定竖直坐标的最后一行，行的顶部位置是递增的（相当于行高加间距的前缀和），二分查找
+     *
+     * @param y 竖直坐标，和子控件位置使用同一坐标系
+     * @return 行索引，y 在第一行之前或者没有任何行时返回 0
+     */
+    public int findRowForY(int y) {
+        int low = 0;
+        int high = mRowCount - 1;
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mRowTop[mid] <= y) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查找底部位置大于指定竖直坐标的第一行，二分查找
+     *
+     * @param y 竖直坐标
+     * @return 行索引，没有时返回行数
+     */
+    public int findFirstRowBelow(int y) {
+        int low = 0;
+        int high = mRowCount - 1;
+        int result = mRowCount;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mRowTop[mid] + mRowHeight[mid] > y) {
+                result = mid;
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查找指定竖直坐标所在的行
+     *
+     * @param y 竖直坐标
+     * @return 行索引，坐标不在任何一行内（在行间距中或者超出范围）时返回 {@link #NO_ROW}
+     */
+    public int findRowAtY(int y) {
+        if (mRowCount == 0) return NO_ROW;
+
+        int row = findRowForY(y);
+        if (y < mRowTop[row] || y >= mRowTop[row] + mRowHeight[row]) {
+            return NO_ROW;
+        }
+        return row;
+    }
+
+    /**
+     * 查找指定坐标下的子控件，先按竖直坐标找到所在行，再在行内按对齐后的水平位置查找，不包括外边距
+     *
+     * @param gravity 对齐方式
+     * @param x       水平坐标
+     * @param y       竖直坐标
+     * @return 子控件位置，没有子控件时返回 -1
+     */
+    public int findItemAt(int gravity, int x, int y) {
+        int row = findRowAtY(y);
+        if (row == NO_ROW) return -1;
+
+        int indexInRow = 0;
+        for (int i = mRowStart[row], end = mRowEnd[row]; i < end; i++) {
+            if (getItemRow(i) != row) continue;
+
+            int offsetX = getRowOffsetX(gravity, row, indexInRow++);
+            if (x < getItemLeft(i) + offsetX) {
+                // 行内子控件从左到右排列，之后的子控件都在右边
+                return -1;
+            }
+            if (x < getItemRight(i) + offsetX) {
+                return y >= getItemTop(i) && y < getItemBottom(i) ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 计算行内子控件在水平方向不同对齐方式下的偏移量，默认居左对齐，不偏移
+     *
+     * @param gravity    对齐方式
+     * @param row        行索引
+     * @param indexInRow 子控件在行内的索引
+     * @return 偏移量
+     */
+    public int getRowOffsetX(int gravity, int row, int indexInRow) {
+        return computeOffsetX(gravity, mContentWidth, mRowUsedWidth[row], mRowItemCount[row], indexInRow);
+    }
+
+    /**
+     * 计算行内子控件在水平方向不同对齐方式下的偏移量
+     *
+     * @param gravity      对齐方式
+     * @param contentWidth 内容宽度
+     * @param rowUsedWidth 行已使用宽度
+     * @param rowItemCount 行内子控件数量
+     * @param indexInRow   子控件在行内的索引
+     * @return 偏移量
+     */
+    public static int computeOffsetX(int gravity, int contentWidth, int rowUsedWidth, int rowItemCount, int indexInRow) {
+        if (gravity == GRAVITY_RIGHT) {
+            // 居右对齐
+            return contentWidth - rowUsedWidth;
+        } else if (gravity == GRAVITY_LEFT_RIGHT) {
+            // 左右两端对齐，每个子控件的偏移量是平均间隔 * 索引
+            if (rowItemCount > 1) {
+                return (contentWidth - rowUsedWidth) / (rowItemCount - 1) * indexInRow;
+            }
+            return 0;
+        } else if (gravity == GRAVITY_CENTER) {
+            // 居中对齐
+            return (contentWidth - rowUsedWidth) / 2;
+        }
+        return 0;
+    }
+
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * 行内第一个子控件位置
+     */
+    public int getRowStart(int row) {
+        return mRowStart[row];
+    }
+
+    /**
+     * 行内最后一个子控件位置 + 1，这个范围内可能包含不占位置的子控件，需要用 {@link #getItemRow(int)} 判断
+     */
+    public int getRowEnd(int row) {
+        return mRowEnd[row];
+    }
+
+    public int getRowTop(int row) {
+        return mRowTop[row];
+    }
+
+    public int getRowHeight(int row) {
+        return mRowHeight[row];
+    }
+
+    public int getRowUsedWidth(int row) {
+        return mRowUsedWidth[row];
+    }
+
+    public int getRowItemCount(int row) {
+        return mRowItemCount[row];
+    }
+
+    public int getItemLeft(int position) {
+        if (mUniformWidth >= 0) {
+            return mOriginX + position % mUniformItemsPerRow * (mUniformWidth + mHorizontalSpacing);
+        }
+        return mItemLeft[position];
+    }
+
+    public int getItemTop(int position) {
+        if (mUniformWidth >= 0) {
+            return mRowTop[position / mUniformItemsPerRow];
+        }
+        return mItemTop[position];
+    }
+
+    public int getItemRight(int position) {
+        if (mUniformWidth >= 0) {
+            return getItemLeft(position) + mUniformWidth;
+        }
+        return mItemRight[position];
+    }
+
+    public int getItemBottom(int position) {
+        if (mUniformWidth >= 0) {
+            return getItemTop(position) + mUniformHeight;
+        }
+        return mItemBottom[position];
+    }
+
+    /**
+     * 子控件所在行索引
+     *
+     * @return 不在任何一行中时返回 {@link #NO_ROW}
+     */
+    public int getItemRow(int position) {
+        if (mUniformWidth >= 0) {
+            return position < mPlacedItemCount ? position / mUniformItemsPerRow : NO_ROW;
+        }
+        return mItemRow[position];
+    }
+
+    /**
+     * 在行中的子控件数量（显示的子控件数量）
+     */
+    public int getPlacedItemCount() {
+        return mPlacedItemCount;
+    }
+
+    /**
+     * 最后一行的底部位置，没有任何行时为 mOriginY
+     */
+    public int getContentBottom() {
+        if (mRowCount == 0) {
+            return mOriginY;
+        }
+        return mRowTop[mRowCount - 1] + mRowHeight[mRowCount - 1];
+    }
+
+    private void ensureItemCapacity(int capacity) {
+        if (capacity <= mItemRow.length) return;
+
+        mItemLeft = ensureCapacity(mItemLeft, capacity, true);
+        mItemTop = ensureCapacity(mItemTop, capacity, true);
+        mItemRight = ensureCapacity(mItemRight, capacity, true);
+        mItemBottom = ensureCapacity(mItemBottom, capacity, true);
+        mItemRow = ensureCapacity(mItemRow, capacity, true);
+    }
+
+    private void ensureRowCapacity(int capacity) {
+        if (capacity <= mRowStart.length) return;
+
+        mRowStart = ensureCapacity(mRowStart, capacity, true);
+        mRowEnd = ensureCapacity(mRowEnd, capacity, true);
+        mRowTop = ensureCapacity(mRowTop, capacity, true);
+        mRowHeight = ensureCapacity(mRowHeight, capacity, true);
+        mRowUsedWidth = ensureCapacity(mRowUsedWidth, capacity, true);
+        mRowItemCount = ensureCapacity(mRowItemCount, capacity, true);
+    }
+
+    /**
+     * 确保数组容量，不够时按 1.5 倍扩容
+     *
+     * @param keep 是否保留原来的数据
+     */
+    private static int[] ensureCapacity(int[] array, int capacity, boolean keep) {
+        if (capacity <= array.length) {
+            return array;
+        }
+        int newCapacity = Math.max(Math.max(capacity, MIN_CAPACITY), array.length + (array.length >> 1));
+        return keep ? Arrays.copyOf(array, newCapacity) : new int[newCapacity];
+    }
+}
@@ -0,0 +1,141 @@
+package com.renj.flowlayout;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   19:05
+ * <p>
+ * 描述：在后台线程中计算新旧数据的差异，回到主线程后替换数据并只通知改变了的部分。<br/>
+ * 适配器持有一个 {@link FlowListDiffer} 对象，数据从 {@link #getCurrentList()} 中获取，替换数据时调用 {@link #submitList(List)}：
+ * <pre>
+ * public int getItemCount() {
+ *     return mDiffer.getCurrentList().size();
+ * }
+ * </pre>
+ * 过滤、刷新等只改变了少量数据的场景下，没有改变的数据保持原来的子控件和测量结果，不需要重新绑定和测量。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public class FlowListDiffer<T> {
+    // 默认的后台计算线程，所有对象共用，按提交顺序执行
+    private static ExecutorService sDefaultExecutor;
+
+    private final FlowLayoutAdapter mAdapter;
+    private final FlowDiffUtil.ItemCallback<T> mItemCallback;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private Executor mDiffExecutor;
+
+    // 当前数据，只在主线程中替换，不可修改
+    private List<T> mCurrentList = Collections.emptyList();
+    // 提交版本，新的数据提交后，之前还没有完成的计算结果全部丢弃
+    private int mMaxScheduledGeneration;
+
+    public FlowListDiffer(FlowLayoutAdapter adapter, FlowDiffUtil.ItemCallback<T> itemCallback) {
+        this.mAdapter = adapter;
+        this.mItemCallback = itemCallback;
+    }
+
+    /**
+     * 设置计算差异的执行器。默认使用所有对象共用的单个后台线程
+     *
+     * @param executor 执行器，{@code null} 时使用默认执行器
+     */
+    public void setDiffExecutor(Executor executor) {
+        this.mDiffExecutor = executor;
+    }
+
+    /**
+     * 获取当前数据（不可修改）
+     */
+    public List<T> getCurrentList() {
+        return mCurrentList;
+    }
+
+    /**
+     * 提交新的数据
+     *
+     * @param newList 新的数据，会复制一份，之后修改这个集合不会影响当前数据
+     */
+    public void submitList(List<T> newList) {
+        submitList(newList, null);
+    }
+
+    /**
+     * 提交新的数据。当前没有数据或者新的数据为空时直接替换，否则在后台线程中计算差异，回到主线程后替换数据并通知适配器
+     *
+     * @param newList        新的数据，会复制一份，之后修改这个集合不会影响当前数据
+     * @param commitCallback 数据替换并通知完成后回调（提交了更新的数据导致这次提交被丢弃时不回调），可以为 {@code null}
+     */
+    public void submitList(List<T> newList, final Runnable commitCallback) {
+        final int generation = ++mMaxScheduledGeneration;
+        final List<T> oldList = mCurrentList;
+        final List<T> list = newList == null ? Collections.<T>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(newList));
+
+        if (oldList.isEmpty() || list.isEmpty()) {
+            // 不需要计算差异
+            int oldSize = oldList.size();
+            mCurrentList = list;
+            if (oldSize > 0) {
+                mAdapter.notifyItemRangeRemoved(0, oldSize);
+            }
+            if (!list.isEmpty()) {
+                mAdapter.notifyItemsAppended(list.size());
+            }
+            if (commitCallback != null) {
+                commitCallback.run();
+            }
+            return;
+        }
+
+        getDiffExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final FlowDiffUtil.DiffResult diffResult = FlowDiffUtil.calculateDiff(oldList, list, mItemCallback);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mMaxScheduledGeneration) return;
+                        mCurrentList = list;
+                        diffResult.dispatchUpdatesTo(mAdapter);
+                        if (commitCallback != null) {
+                            commitCallback.run();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private Executor getDiffExecutor() {
+        if (mDiffExecutor != null) return mDiffExecutor;
+        synchronized (FlowListDiffer.class) {
+            if (sDefaultExecutor == null) {
+                sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "FlowLayout-Diff");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return sDefaultExecutor;
+        }
+    }
+}
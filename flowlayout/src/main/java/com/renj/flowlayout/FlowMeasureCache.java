@@ -0,0 +1,134 @@
+package com.renj.flowlayout;
+
+import android.util.LongSparseArray;
+import android.view.View;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   14:36
+ * <p>
+ * 描述：{@link FlowLayout} 子控件测量结果缓存。<br/>
+ * 以适配器返回的稳定 id({@link FlowLayoutAdapter#getItemId(int)}) 为 key，保存在某一宽度规格下子控件测量后的尺寸和外边距，
+ * 宽度规格改变时所有缓存失效；单个子控件内容改变时通过 {@link FlowLayoutAdapter#notifyItemChanged(int)} 使对应缓存失效。<br/>
+ * 数据整体改变或者移除数据之后，已经不在数据中的 id 由 {@link #prune(FlowLayoutAdapter, int)} 在布局之后统一移除，
+ * 缓存数量不会无限增长。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+final class FlowMeasureCache {
+    static final int WIDTH = 0;         // 测量宽度
+    static final int HEIGHT = 1;        // 测量高度
+    static final int LEFT_MARGIN = 2;   // 左外边距
+    static final int TOP_MARGIN = 3;    // 上外边距
+    static final int RIGHT_MARGIN = 4;  // 右外边距
+    static final int BOTTOM_MARGIN = 5; // 下外边距
+    static final int GONE = 6;          // 是否为 View.GONE，1：是  0：否
+    static final int SIZE = 7;
+    // 清理时的标记位置，只有缓存的数组有这一位
+    private static final int MARK = SIZE;
+
+    private final LongSparseArray<int[]> mItemSizes = new LongSparseArray<>();
+    // 没有稳定 id 时使用的临时数组，不会缓存
+    private final int[] mTempItemSize = new int[SIZE];
+    // 缓存对应的宽度规格
+    private int mWidthMeasureSpec;
+    // 当前清理的标记值
+    private int mPruneMark;
+
+    /**
+     * 检查宽度规格，和缓存对应的宽度规格不同时清除所有缓存
+     */
+    void checkWidthMeasureSpec(int widthMeasureSpec) {
+        if (mWidthMeasureSpec != widthMeasureSpec) {
+            mItemSizes.clear();
+            mWidthMeasureSpec = widthMeasureSpec;
+        }
+    }
+
+    /**
+     * 获取缓存的测量结果
+     *
+     * @param itemId 稳定 id
+     * @return 没有缓存或者没有稳定 id 时返回 {@code null}
+     */
+    int[] get(long itemId) {
+        if (itemId == FlowLayoutAdapter.NO_ID) return null;
+        return mItemSizes.get(itemId);
+    }
+
+    /**
+     * 保存已经测量完成的子控件的尺寸和外边距
+     *
+     * @param itemId    稳定 id，{@link FlowLayoutAdapter#NO_ID} 时不缓存，只返回临时数组
+     * @param childView 已经测量完成的子控件
+     * @return 保存了测量结果的数组
+     */
+    int[] put(long itemId, View childView) {
+        int[] itemSize;
+        if (itemId == FlowLayoutAdapter.NO_ID) {
+            itemSize = mTempItemSize;
+        } else {
+            itemSize = mItemSizes.get(itemId);
+            if (itemSize == null) {
+                itemSize = new int[SIZE + 1];
+                itemSize[MARK] = mPruneMark;
+                mItemSizes.put(itemId, itemSize);
+            }
+        }
+
+        FlowLayout.LayoutParams layoutParams = (FlowLayout.LayoutParams) childView.getLayoutParams();
+        itemSize[WIDTH] = childView.getMeasuredWidth();
+        itemSize[HEIGHT] = childView.getMeasuredHeight();
+        itemSize[LEFT_MARGIN] = layoutParams.leftMargin;
+        itemSize[TOP_MARGIN] = layoutParams.topMargin;
+        itemSize[RIGHT_MARGIN] = layoutParams.rightMargin;
+        itemSize[BOTTOM_MARGIN] = layoutParams.bottomMargin;
+        itemSize[GONE] = childView.getVisibility() == View.GONE ? 1 : 0;
+        return itemSize;
+    }
+
+    /**
+     * 移除指定 id 的缓存
+     */
+    void remove(long itemId) {
+        if (itemId != FlowLayoutAdapter.NO_ID) {
+            mItemSizes.remove(itemId);
+        }
+    }
+
+    /**
+     * 缓存数量超过指定数量时，移除已经不在适配器数据中的 id 的缓存
+     *
+     * @param flowLayoutAdapter 当前的适配器
+     * @param maxSize           不需要清理的最大缓存数量
+     */
+    void prune(FlowLayoutAdapter flowLayoutAdapter, int maxSize) {
+        if (mItemSizes.size() <= maxSize) return;
+
+        // 先标记当前数据中的 id，再从后往前移除没有标记的
+        int mark = ++mPruneMark;
+        for (int position = 0, itemCount = flowLayoutAdapter.getItemCount(); position < itemCount; position++) {
+            int[] itemSize = get(flowLayoutAdapter.getItemId(position));
+            if (itemSize != null) {
+                itemSize[MARK] = mark;
+            }
+        }
+        for (int i = mItemSizes.size() - 1; i >= 0; i--) {
+            if (mItemSizes.valueAt(i)[MARK] != mark) {
+                mItemSizes.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * 清除所有缓存
+     */
+    void clear() {
+        mItemSizes.clear();
+    }
+}
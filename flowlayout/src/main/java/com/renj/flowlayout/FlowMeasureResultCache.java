@@ -0,0 +1,85 @@
+package com.renj.flowlayout;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   23:40
+ * <p>
+ * 描述：{@link FlowLayout} 自身测量结果缓存，以宽度规格和高度规格为 key，保存测量后的宽度和高度（包括测量状态）。<br/>
+ * LinearLayout（有权重时）、RelativeLayout、ConstraintLayout 等父控件在一次布局中会用不同的规格多次测量，
+ * 已经测量过的规格直接返回缓存的尺寸，不再重新换行；{@link FlowLayout} 请求重新布局（数据、属性、padding 改变或者子控件请求重新布局）时全部失效。<br/>
+ * 只保存最近的 {@link #MAX_SIZE} 个规格，超过时覆盖最早保存的。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+final class FlowMeasureResultCache {
+    /**
+     * 最多保存的规格数量，父控件一次布局中很少使用超过这个数量的不同规格
+     */
+    static final int MAX_SIZE = 4;
+
+    // 高 32 位为宽度规格，低 32 位为高度规格
+    private final long[] mSpecs = new long[MAX_SIZE];
+    private final int[] mMeasuredWidths = new int[MAX_SIZE];
+    private final int[] mMeasuredHeights = new int[MAX_SIZE];
+    private int mSize;
+    private int mNextIndex; // 保存满了之后下一个覆盖的位置
+
+    /**
+     * 查找规格对应的缓存
+     *
+     * @return 缓存的索引，没有时返回 -1
+     */
+    int indexOf(int widthMeasureSpec, int heightMeasureSpec) {
+        long spec = toKey(widthMeasureSpec, heightMeasureSpec);
+        for (int i = 0; i < mSize; i++) {
+            if (mSpecs[i] == spec) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 缓存的测量宽度，包括测量状态（{@link android.view.View#getMeasuredWidthAndState()}）
+     */
+    int getMeasuredWidthAndState(int index) {
+        return mMeasuredWidths[index];
+    }
+
+    /**
+     * 缓存的测量高度，包括测量状态（{@link android.view.View#getMeasuredHeightAndState()}）
+     */
+    int getMeasuredHeightAndState(int index) {
+        return mMeasuredHeights[index];
+    }
+
+    /**
+     * 保存规格对应的测量结果，已经保存过的规格直接覆盖
+     */
+    void put(int widthMeasureSpec, int heightMeasureSpec, int measuredWidthAndState, int measuredHeightAndState) {
+        int index = indexOf(widthMeasureSpec, heightMeasureSpec);
+        if (index < 0) {
+            if (mSize < MAX_SIZE) {
+                index = mSize++;
+            } else {
+                index = mNextIndex;
+                mNextIndex = (mNextIndex + 1) % MAX_SIZE;
+            }
+        }
+        mSpecs[index] = toKey(widthMeasureSpec, heightMeasureSpec);
+        mMeasuredWidths[index] = measuredWidthAndState;
+        mMeasuredHeights[index] = measuredHeightAndState;
+    }
+
+    void clear() {
+        mSize = 0;
+        mNextIndex = 0;
+    }
+
+    private static long toKey(int widthMeasureSpec, int heightMeasureSpec) {
+        return ((long) widthMeasureSpec << 32) | (heightMeasureSpec & 0xffffffffL);
+    }
+}
@@ -0,0 +1,89 @@
+package com.renj.flowlayout;
+
+import android.view.Choreographer;
+import android.view.Display;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   21:05
+ * <p>
+ * 描述：{@link FlowLayout} 快速滑动（fling）时的预取调度。<br/>
+ * 每一帧开始时通过 {@link Choreographer} 记录帧时间，这一帧绘制完成后（同一次消息之后）在剩下的空闲时间里，
+ * 由 {@link FlowLayout} 提前创建、绑定和测量滑动方向上即将进入可见区域的子控件，截止时间为下一帧开始的时间，
+ * 这样新的行进入可见区域时只需要添加到父控件中，绑定数据不会发生在绘制帧里。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+final class FlowPrefetcher implements Choreographer.FrameCallback, Runnable {
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
+    private final FlowLayout mFlowLayout;
+    private boolean mScheduled;
+    private long mFrameTimeNanos;
+    // 预取一个子控件（创建、绑定、测量）的平均耗时，用于判断剩下的时间是否还够
+    private long mAverageItemNanos;
+
+    FlowPrefetcher(FlowLayout flowLayout) {
+        this.mFlowLayout = flowLayout;
+    }
+
+    /**
+     * 请求在当前帧绘制完成后预取，同一帧只调度一次
+     */
+    void schedule() {
+        if (mScheduled) return;
+        mScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * 取消还没有执行的预取
+     */
+    void cancel() {
+        if (!mScheduled) return;
+        mScheduled = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        mFlowLayout.removeCallbacks(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameTimeNanos = frameTimeNanos;
+        // 现在还在这一帧的处理过程中，post() 的任务在这一帧布局和绘制完成之后才执行
+        mFlowLayout.post(this);
+    }
+
+    @Override
+    public void run() {
+        mScheduled = false;
+        mFlowLayout.prefetch(this, mFrameTimeNanos + getFrameIntervalNanos());
+    }
+
+    /**
+     * 截止时间之前剩下的时间是否还够预取一个子控件
+     */
+    boolean hasTimeForItem(long deadlineNanos) {
+        return System.nanoTime() + mAverageItemNanos < deadlineNanos;
+    }
+
+    /**
+     * 记录预取一个子控件的耗时
+     */
+    void onItemPrefetched(long itemNanos) {
+        mAverageItemNanos = mAverageItemNanos == 0 ? itemNanos : (mAverageItemNanos * 3 + itemNanos) / 4;
+    }
+
+    /**
+     * 一帧的时间间隔（纳秒），按屏幕刷新率计算
+     */
+    long getFrameIntervalNanos() {
+        Display display = mFlowLayout.getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 0;
+        return refreshRate >= 30 ? (long) (1000000000L / refreshRate) : DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+}
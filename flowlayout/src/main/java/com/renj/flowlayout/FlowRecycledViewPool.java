@@ -0,0 +1,122 @@
+package com.renj.flowlayout;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   22:20
+ * <p>
+ * 描述：子控件复用池，按控件类型保存不再显示的子控件，每种类型有最大数量限制。<br/>
+ * 每个 {@link FlowLayout} 默认有自己的复用池；多个 {@link FlowLayout} 作为 RecyclerView 的列表项时，
+ * 可以通过 {@link FlowLayout#setRecycledViewPool(FlowRecycledViewPool)} 共用同一个复用池，
+ * 一个 {@link FlowLayout} 更换适配器时移除的子控件可以直接给下一个绑定的 {@link FlowLayout} 使用，不需要重新创建。<br/>
+ * 列表项被回收时在 RecyclerView.Adapter 的 onViewRecycled() 中调用 {@link FlowLayout#recycleAllChildViews()}，
+ * 子控件马上放入复用池：
+ * <pre>
+ * public void onViewRecycled(ViewHolder holder) {
+ *     holder.flowLayout.recycleAllChildViews();
+ * }
+ * </pre>
+ * 共用时需要注意：<br/>
+ * 1. 所有适配器中同一个控件类型（{@link FlowLayoutAdapter#getItemViewType(int)}）需要对应同一种控件；<br/>
+ * 2. 子控件使用创建时的 Context，只在同一个页面中共用；<br/>
+ * 3. 只能在主线程中使用。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public class FlowRecycledViewPool {
+    /**
+     * 每种类型控件默认的最大复用数量
+     */
+    public static final int DEFAULT_MAX_RECYCLED_VIEWS = 30;
+
+    // key：控件类型
+    private final SparseArray<ArrayList<View>> mRecycledViews = new SparseArray<>();
+    // 每种类型控件的最大复用数量，key：控件类型
+    private final SparseIntArray mMaxRecycledViews = new SparseIntArray();
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * 设置指定类型控件的最大复用数量，默认 {@link #DEFAULT_MAX_RECYCLED_VIEWS}，超过的部分直接丢弃
+     *
+     * @param viewType 控件类型，{@link FlowLayoutAdapter#getItemViewType(int)} 方法的返回值
+     * @param max      最大复用数量
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+        mMaxRecycledViews.put(viewType, max);
+        ArrayList<View> recycledViews = mRecycledViews.get(viewType);
+        if (recycledViews != null) {
+            while (recycledViews.size() > max) {
+                recycledViews.remove(recycledViews.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * 获取复用池中指定类型控件的数量
+     */
+    public int getRecycledViewCount(int viewType) {
+        ArrayList<View> recycledViews = mRecycledViews.get(viewType);
+        return recycledViews == null ? 0 : recycledViews.size();
+    }
+
+    /**
+     * 从复用池中取到控件的次数
+     */
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * 复用池中没有对应类型的控件、需要由适配器创建的次数
+     */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * 清除复用池中所有的控件，统计次数不变
+     */
+    public void clear() {
+        mRecycledViews.clear();
+    }
+
+    /**
+     * 放入复用池，控件需要已经从父控件中移除，超过最大数量时丢弃
+     */
+    void putRecycledView(int viewType, View childView) {
+        ArrayList<View> recycledViews = mRecycledViews.get(viewType);
+        if (recycledViews == null) {
+            recycledViews = new ArrayList<>();
+            mRecycledViews.put(viewType, recycledViews);
+        }
+        if (recycledViews.size() < mMaxRecycledViews.get(viewType, DEFAULT_MAX_RECYCLED_VIEWS)) {
+            recycledViews.add(childView);
+        }
+    }
+
+    /**
+     * 取出指定类型的控件
+     *
+     * @return 没有时返回 {@code null}
+     */
+    View getRecycledView(int viewType) {
+        ArrayList<View> recycledViews = mRecycledViews.get(viewType);
+        if (recycledViews == null || recycledViews.isEmpty()) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        return recycledViews.remove(recycledViews.size() - 1);
+    }
+}
@@ -0,0 +1,240 @@
+package com.renj.flowlayout;
+
+import android.util.LongSparseArray;
+import android.util.SparseArray;
+import android.view.View;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   10:12
+ * <p>
+ * 描述：{@link FlowLayout} 子控件复用管理类。<br/>
+ * 包含两级缓存：<br/>
+ * 1. 临时缓存(scrap)：每次测量前从父控件上分离下来的子控件，按位置保存，同一位置优先使用；
+ * 适配器有稳定 id({@link FlowLayoutAdapter#hasStableIds()})时按 id 查找，数据位置改变后同一项数据仍然使用原来的控件；<br/>
+ * 2. 复用池({@link FlowRecycledViewPool})：按控件类型保存的不再显示的子控件，每种类型有最大数量限制，可以在多个
+ * {@link FlowLayout} 之间共用。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+final class FlowRecycler {
+    private final FlowLayout mFlowLayout;
+    // 统计创建和绑定子控件的次数
+    private final FlowLayoutMetrics mLayoutMetrics;
+    // 临时缓存，key：控件所在位置
+    private final SparseArray<View> mScrapViews = new SparseArray<>();
+    // 临时缓存中有稳定 id 的控件，key：控件绑定的数据 id
+    private final LongSparseArray<View> mScrapViewsById = new LongSparseArray<>();
+    // 快速滑动时预取的控件，已经绑定好数据并测量，还没有添加到父控件中，key：控件所在位置
+    private final SparseArray<View> mPrefetchedViews = new SparseArray<>();
+    // 复用池，默认每个 FlowLayout 单独使用
+    private FlowRecycledViewPool mRecycledViewPool = new FlowRecycledViewPool();
+    // 复用池是否是外部设置的（多个 FlowLayout 共用）
+    private boolean mRecycledViewPoolShared;
+
+    FlowRecycler(FlowLayout flowLayout, FlowLayoutMetrics layoutMetrics) {
+        this.mFlowLayout = flowLayout;
+        this.mLayoutMetrics = layoutMetrics;
+    }
+
+    /**
+     * 获取指定位置的子控件，并且已经绑定好数据。查找顺序：预取的控件（不需要再绑定） -> 临时缓存 -> 复用池 -> 由适配器创建
+     *
+     * @param flowLayoutAdapter 适配器
+     * @param position          位置
+     * @return 绑定好数据的子控件（未添加到父控件中）
+     */
+    View getViewForPosition(FlowLayoutAdapter flowLayoutAdapter, int position) {
+        int viewType = flowLayoutAdapter.getItemViewType(position);
+        View prefetchedView = getPrefetchedView(position, viewType);
+        if (prefetchedView != null) return prefetchedView;
+
+        long itemId = flowLayoutAdapter.hasStableIds() ? flowLayoutAdapter.getItemId(position) : FlowLayoutAdapter.NO_ID;
+        View childView = itemId != FlowLayoutAdapter.NO_ID ? getScrapViewById(itemId, viewType) : getScrapView(position, viewType);
+        if (childView == null) {
+            childView = mRecycledViewPool.getRecycledView(viewType);
+        }
+
+        boolean recyclable = true;
+        if (childView == null) {
+            childView = flowLayoutAdapter.onCreateView(mFlowLayout.getContext(), mFlowLayout, viewType);
+            if (childView == null) {
+                // 适配器没有实现 onCreateView() 方法，使用旧方式创建，这种控件不能复用
+                childView = flowLayoutAdapter.createView(mFlowLayout.getContext(), mFlowLayout, position);
+                recyclable = false;
+            }
+            mLayoutMetrics.onCreateView();
+        }
+        if (recyclable) {
+            flowLayoutAdapter.onBindView(childView, position);
+            mLayoutMetrics.onBindView();
+        }
+
+        // 绑定数据时可能会重新设置 LayoutParams，所以需要在绑定之后获取
+        FlowLayout.LayoutParams layoutParams = mFlowLayout.obtainLayoutParams(childView);
+        layoutParams.viewType = viewType;
+        layoutParams.position = position;
+        layoutParams.itemId = itemId;
+        layoutParams.recyclable = recyclable;
+        return childView;
+    }
+
+    /**
+     * 增加到临时缓存中，控件需要已经从父控件上分离
+     */
+    void addScrapView(View childView) {
+        FlowLayout.LayoutParams layoutParams = (FlowLayout.LayoutParams) childView.getLayoutParams();
+        layoutParams.detached = true;
+        mScrapViews.put(layoutParams.position, childView);
+        if (layoutParams.itemId != FlowLayoutAdapter.NO_ID) {
+            mScrapViewsById.put(layoutParams.itemId, childView);
+        }
+    }
+
+    private View getScrapView(int position, int viewType) {
+        View childView = mScrapViews.get(position);
+        if (childView == null) return null;
+
+        FlowLayout.LayoutParams layoutParams = (FlowLayout.LayoutParams) childView.getLayoutParams();
+        if (layoutParams.viewType != viewType) return null;
+
+        mScrapViews.remove(position);
+        if (layoutParams.itemId != FlowLayoutAdapter.NO_ID) {
+            mScrapViewsById.remove(layoutParams.itemId);
+        }
+        return childView;
+    }
+
+    private View getScrapViewById(long itemId, int viewType) {
+        View childView = mScrapViewsById.get(itemId);
+        if (childView == null) return null;
+
+        FlowLayout.LayoutParams layoutParams = (FlowLayout.LayoutParams) childView.getLayoutParams();
+        if (layoutParams.viewType != viewType) return null;
+
+        mScrapViewsById.remove(itemId);
+        mScrapViews.remove(layoutParams.position);
+        return childView;
+    }
+
+    /**
+     * 保存预取的控件，控件已经绑定好指定位置的数据
+     */
+    void addPrefetchedView(int position, View childView) {
+        mPrefetchedViews.put(position, childView);
+    }
+
+    /**
+     * 指定位置是否有预取的控件
+     */
+    boolean hasPrefetchedView(int position) {
+        return mPrefetchedViews.get(position) != null;
+    }
+
+    private View getPrefetchedView(int position, int viewType) {
+        View childView = mPrefetchedViews.get(position);
+        if (childView == null) return null;
+
+        mPrefetchedViews.remove(position);
+        if (((FlowLayout.LayoutParams) childView.getLayoutParams()).viewType != viewType) {
+            recycleView(childView);
+            return null;
+        }
+        return childView;
+    }
+
+    /**
+     * 回收不在指定位置范围内的预取控件（比如滑动方向改变了）
+     *
+     * @param fromPosition 开始位置（包括）
+     * @param toPosition   结束位置（不包括）
+     */
+    void recyclePrefetchedViews(int fromPosition, int toPosition) {
+        for (int i = mPrefetchedViews.size() - 1; i >= 0; i--) {
+            int position = mPrefetchedViews.keyAt(i);
+            if (position < fromPosition || position >= toPosition) {
+                recycleView(mPrefetchedViews.valueAt(i));
+                mPrefetchedViews.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * 回收所有预取的控件，数据或者布局改变后位置和尺寸可能不再对应
+     */
+    void clearPrefetchedViews() {
+        if (mPrefetchedViews.size() == 0) return;
+
+        for (int i = 0, size = mPrefetchedViews.size(); i < size; i++) {
+            recycleView(mPrefetchedViews.valueAt(i));
+        }
+        mPrefetchedViews.clear();
+    }
+
+    /**
+     * 临时缓存中剩下的控件数量
+     */
+    int getScrapCount() {
+        return mScrapViews.size();
+    }
+
+    /**
+     * 获取临时缓存中指定索引的控件
+     */
+    View getScrapViewAt(int index) {
+        return mScrapViews.valueAt(index);
+    }
+
+    /**
+     * 清除临时缓存，清除前需要调用 {@link #recycleView(View)} 方法将剩下的控件放入复用池
+     */
+    void clearScrap() {
+        mScrapViews.clear();
+        mScrapViewsById.clear();
+    }
+
+    /**
+     * 回收控件到复用池中，控件需要已经从父控件中移除
+     */
+    void recycleView(View childView) {
+        FlowLayout.LayoutParams layoutParams = (FlowLayout.LayoutParams) childView.getLayoutParams();
+        layoutParams.detached = false;
+        if (!layoutParams.recyclable) return;
+
+        mRecycledViewPool.putRecycledView(layoutParams.viewType, childView);
+    }
+
+    /**
+     * 设置复用池
+     *
+     * @param recycledViewPool 多个 {@link FlowLayout} 共用的复用池，{@code null} 时恢复为单独使用的复用池
+     */
+    void setRecycledViewPool(FlowRecycledViewPool recycledViewPool) {
+        clearPrefetchedViews();
+        mRecycledViewPoolShared = recycledViewPool != null;
+        mRecycledViewPool = recycledViewPool != null ? recycledViewPool : new FlowRecycledViewPool();
+    }
+
+    FlowRecycledViewPool getRecycledViewPool() {
+        return mRecycledViewPool;
+    }
+
+    /**
+     * 清除缓存，更换适配器时调用。共用的复用池中的控件留给其他 {@link FlowLayout} 使用，预取的控件放入其中
+     */
+    void clear() {
+        mScrapViews.clear();
+        mScrapViewsById.clear();
+        if (mRecycledViewPoolShared) {
+            clearPrefetchedViews();
+        } else {
+            mPrefetchedViews.clear();
+            mRecycledViewPool.clear();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.renj.flowlayout;
+
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+
+import androidx.annotation.RequiresApi;
+
+import java.util.ArrayList;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   21:40
+ * <p>
+ * 描述：{@link FlowLayout} 按行缓存绘制内容（API 29 及以上，硬件加速时）。<br/>
+ * 每一行的子控件录制到一个 {@link RenderNode} 中，{@link FlowLayout} 重绘时（比如滑动）直接绘制各行缓存的内容，
+ * 不再对每个子控件调用 drawChild()。只有行中的子控件请求重绘、行添加了子控件或者重新布局后才重新录制这一行。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+@RequiresApi(Build.VERSION_CODES.Q)
+final class FlowRowRenderer {
+    // 每一行的缓存，key：行索引
+    private final SparseArray<RenderNode> mRowNodes = new SparseArray<>();
+    // 内容已经改变、下次绘制时需要重新录制的行
+    private final SparseBooleanArray mStaleRows = new SparseBooleanArray();
+    // 释放了的 RenderNode，给其他行使用
+    private final ArrayList<RenderNode> mNodePool = new ArrayList<>();
+
+    /**
+     * 是否可以绘制到指定的画布中（硬件加速时的画布）
+     */
+    boolean canDraw(Canvas canvas) {
+        return canvas instanceof RecordingCanvas;
+    }
+
+    /**
+     * 开始录制一行，行的缓存有效并且位置没有改变时不需要录制
+     *
+     * @return 录制用的画布，和子控件 getTop() 同一坐标系；不需要录制时返回 {@code null}
+     */
+    Canvas beginRow(int row, int width, int top, int bottom) {
+        RenderNode rowNode = mRowNodes.get(row);
+        if (rowNode == null) {
+            rowNode = obtainNode();
+            mRowNodes.put(row, rowNode);
+        } else if (rowNode.hasDisplayList() && !mStaleRows.get(row) && rowNode.getTop() == top
+                && rowNode.getBottom() == bottom && rowNode.getWidth() == width) {
+            return null;
+        }
+
+        mStaleRows.delete(row);
+        rowNode.setPosition(0, top, width, bottom);
+        RecordingCanvas recordingCanvas = rowNode.beginRecording(width, bottom - top);
+        recordingCanvas.translate(0, -top);
+        return recordingCanvas;
+    }
+
+    /**
+     * 结束录制一行
+     *
+     * @param stale 子控件还在执行动画，下次绘制时需要重新录制
+     */
+    void endRow(int row, boolean stale) {
+        mRowNodes.get(row).endRecording();
+        if (stale) {
+            mStaleRows.put(row, true);
+        }
+    }
+
+    /**
+     * 绘制一行缓存的内容，需要先调用 {@link #beginRow(int, int, int, int)}
+     */
+    void drawRow(Canvas canvas, int row) {
+        ((RecordingCanvas) canvas).drawRenderNode(mRowNodes.get(row));
+    }
+
+    /**
+     * 行中的子控件改变了，下次绘制时重新录制
+     */
+    void invalidateRow(int row) {
+        if (mRowNodes.get(row) != null) {
+            mStaleRows.put(row, true);
+        }
+    }
+
+    /**
+     * 行的子控件被移除了，释放这一行的缓存
+     */
+    void releaseRow(int row) {
+        RenderNode rowNode = mRowNodes.get(row);
+        if (rowNode == null) return;
+
+        mRowNodes.remove(row);
+        mStaleRows.delete(row);
+        rowNode.discardDisplayList();
+        mNodePool.add(rowNode);
+    }
+
+    /**
+     * 重新布局后行的内容和位置都可能改变了，释放所有行的缓存
+     */
+    void releaseAll() {
+        for (int i = 0, size = mRowNodes.size(); i < size; i++) {
+            RenderNode rowNode = mRowNodes.valueAt(i);
+            rowNode.discardDisplayList();
+            mNodePool.add(rowNode);
+        }
+        mRowNodes.clear();
+        mStaleRows.clear();
+    }
+
+    private RenderNode obtainNode() {
+        int size = mNodePool.size();
+        if (size > 0) {
+            return mNodePool.remove(size - 1);
+        }
+        RenderNode rowNode = new RenderNode("FlowLayoutRow");
+        // 子控件的阴影、水波纹可能超出行的范围
+        rowNode.setClipToBounds(false);
+        return rowNode;
+    }
+}
@@ -0,0 +1,151 @@
+package com.renj.flowlayout;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   19:40
+ * <p>
+ * 描述：{@link FlatTagFlowLayoutAdapter} 中标签的样式：文字画笔、背景和内边距。<br/>
+ * 同一种样式的所有标签共用一个对象（包括画笔和背景 {@link Drawable}），绘制时只修改背景的位置和状态，
+ * 不会为每个标签创建对象。样式修改后需要调用适配器的 {@link FlowLayoutAdapter#notifyChange()} 重新测量。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public class FlowTagStyle {
+    private static final int[] STATE_PRESSED = {android.R.attr.state_pressed};
+    private static final int[] STATE_NORMAL = {};
+
+    private final TextPaint mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetricsInt mFontMetrics = new Paint.FontMetricsInt();
+    private Drawable mBackground;
+    private int mPaddingLeft;
+    private int mPaddingTop;
+    private int mPaddingRight;
+    private int mPaddingBottom;
+    private int mMinWidth;
+    // 文字高度，画笔改变后重新计算
+    private int mTextHeight = -1;
+
+    /**
+     * 设置文字大小
+     *
+     * @param textSize 文字大小（px）
+     */
+    public FlowTagStyle setTextSize(float textSize) {
+        mTextPaint.setTextSize(textSize);
+        mTextHeight = -1;
+        return this;
+    }
+
+    /**
+     * 设置文字颜色
+     */
+    public FlowTagStyle setTextColor(int textColor) {
+        mTextPaint.setColor(textColor);
+        return this;
+    }
+
+    /**
+     * 设置字体
+     */
+    public FlowTagStyle setTypeface(Typeface typeface) {
+        mTextPaint.setTypeface(typeface);
+        mTextHeight = -1;
+        return this;
+    }
+
+    /**
+     * 设置背景，同一种样式的所有标签共用，按下时设置为按下状态
+     *
+     * @param background 背景，可以为 {@code null}
+     */
+    public FlowTagStyle setBackground(Drawable background) {
+        this.mBackground = background;
+        return this;
+    }
+
+    /**
+     * 设置内边距（px）
+     */
+    public FlowTagStyle setPadding(int left, int top, int right, int bottom) {
+        this.mPaddingLeft = left;
+        this.mPaddingTop = top;
+        this.mPaddingRight = right;
+        this.mPaddingBottom = bottom;
+        return this;
+    }
+
+    /**
+     * 设置最小宽度（px，包括内边距）
+     */
+    public FlowTagStyle setMinWidth(int minWidth) {
+        this.mMinWidth = minWidth;
+        return this;
+    }
+
+    /**
+     * 获取文字画笔，直接修改影响尺寸的属性后需要重新测量
+     */
+    public TextPaint getTextPaint() {
+        // 调用者可能修改字号、字体，下次重新计算文字高度
+        mTextHeight = -1;
+        return mTextPaint;
+    }
+
+    /**
+     * 标签宽度：文字宽度（先从 {@link FlowTextWidthCache} 中查找）加上左右内边距，不小于最小宽度
+     */
+    int measureWidth(CharSequence text) {
+        int textWidth = (int) Math.ceil(FlowTextWidthCache.getTextWidth(mTextPaint, text));
+        return Math.max(textWidth + mPaddingLeft + mPaddingRight, mMinWidth);
+    }
+
+    /**
+     * 标签高度：单行文字高度加上上下内边距
+     */
+    int measureHeight() {
+        return getTextHeight() + mPaddingTop + mPaddingBottom;
+    }
+
+    /**
+     * 在指定位置绘制背景和文字
+     *
+     * @param truncated 测量时宽度是否被限制了，是时检查文字宽度，超过可用宽度时末尾显示省略号
+     */
+    void draw(Canvas canvas, CharSequence text, int left, int top, int right, int bottom, boolean pressed, boolean truncated) {
+        Drawable background = mBackground;
+        if (background != null) {
+            background.setState(pressed ? STATE_PRESSED : STATE_NORMAL);
+            background.setBounds(left, top, right, bottom);
+            background.draw(canvas);
+        }
+
+        int textLeft = left + mPaddingLeft;
+        int availableWidth = right - mPaddingRight - textLeft;
+        if (truncated && mTextPaint.measureText(text, 0, text.length()) > availableWidth) {
+            text = TextUtils.ellipsize(text, mTextPaint, availableWidth, TextUtils.TruncateAt.END);
+        }
+        // 文字在上下内边距之间竖直居中
+        int textTop = top + mPaddingTop + (bottom - top - mPaddingTop - mPaddingBottom - getTextHeight()) / 2;
+        canvas.drawText(text, 0, text.length(), textLeft, textTop - mFontMetrics.ascent, mTextPaint);
+    }
+
+    private int getTextHeight() {
+        if (mTextHeight < 0) {
+            mTextPaint.getFontMetricsInt(mFontMetrics);
+            mTextHeight = mFontMetrics.descent - mFontMetrics.ascent;
+        }
+        return mTextHeight;
+    }
+}
@@ -0,0 +1,222 @@
+package com.renj.flowlayout;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   20:30
+ * <p>
+ * 描述：进程内共享的文字宽度缓存（LRU，有数量上限）。<br/>
+ * 以（文字、字体、字号、字间距、横向缩放、画笔标志）为 key 保存单行文字宽度，
+ * {@link TextTagFlowLayoutAdapter} 和 {@link FlatTagFlowLayoutAdapter} 计算文字宽度前先查找这里，
+ * 多个页面、多个 {@link FlowLayout} 显示同一批标签时，相同的文字只需要计算一次。
+ * 内边距不属于 key，同一段文字在不同内边距的样式中也可以共用。<br/>
+ * 只缓存 {@link String}，带样式的文字（Spanned）宽度可能随样式改变，每次重新计算。
+ * 可以在多个线程中使用；{@link FlowLayout} 创建时会注册内存回调，系统内存不足时自动缩小或清空缓存。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public final class FlowTextWidthCache {
+    /**
+     * 默认最大缓存数量
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private static final LruCache<Key, Float> sCache = new LruCache<>(DEFAULT_MAX_SIZE);
+    // 查找时使用的 key，只在同步块中使用，避免每次查找都创建对象
+    private static final Key sLookupKey = new Key();
+    private static boolean sCallbacksRegistered;
+
+    private FlowTextWidthCache() {
+    }
+
+    /**
+     * 设置最大缓存数量，超过时移除最久没有使用的
+     */
+    public static void setMaxSize(int maxSize) {
+        synchronized (sCache) {
+            sCache.resize(maxSize);
+        }
+    }
+
+    /**
+     * 命中缓存的次数
+     */
+    public static int getHitCount() {
+        synchronized (sCache) {
+            return sCache.hitCount();
+        }
+    }
+
+    /**
+     * 没有命中缓存（需要计算）的次数
+     */
+    public static int getMissCount() {
+        synchronized (sCache) {
+            return sCache.missCount();
+        }
+    }
+
+    /**
+     * 当前缓存数量
+     */
+    public static int size() {
+        synchronized (sCache) {
+            return sCache.size();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        synchronized (sCache) {
+            sCache.evictAll();
+        }
+    }
+
+    /**
+     * 根据系统内存状态缩小缓存，可以在 Application / Activity 的 onTrimMemory() 中调用，
+     * {@link FlowLayout} 已经自动注册了回调时不需要再调用
+     *
+     * @param level {@link ComponentCallbacks2#onTrimMemory(int)} 的参数
+     */
+    public static void onTrimMemory(int level) {
+        synchronized (sCache) {
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+                sCache.evictAll();
+            } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                    || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                    || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+                sCache.trimToSize(sCache.maxSize() / 2);
+            }
+        }
+    }
+
+    /**
+     * 获取单行文字宽度，先查找缓存，没有时计算并保存
+     *
+     * @param paint 文字画笔
+     * @param text  文字
+     * @return 文字宽度（px）
+     */
+    static float getTextWidth(TextPaint paint, CharSequence text) {
+        float width = get(paint, text);
+        if (Float.isNaN(width)) {
+            width = Layout.getDesiredWidth(text, paint);
+            put(paint, text, width);
+        }
+        return width;
+    }
+
+    /**
+     * 查找缓存的文字宽度
+     *
+     * @return 没有缓存时返回 {@link Float#NaN}
+     */
+    static float get(TextPaint paint, CharSequence text) {
+        if (!(text instanceof String)) return Float.NaN;
+
+        synchronized (sCache) {
+            Float width = sCache.get(sLookupKey.set((String) text, paint));
+            return width == null ? Float.NaN : width;
+        }
+    }
+
+    /**
+     * 保存计算好的文字宽度
+     */
+    static void put(TextPaint paint, CharSequence text, float width) {
+        if (!(text instanceof String)) return;
+
+        synchronized (sCache) {
+            sCache.put(new Key().set((String) text, paint), width);
+        }
+    }
+
+    /**
+     * 注册系统内存回调（只注册一次）
+     */
+    static void registerComponentCallbacks(Context context) {
+        synchronized (sCache) {
+            if (sCallbacksRegistered) return;
+            sCallbacksRegistered = true;
+        }
+        Context applicationContext = context.getApplicationContext();
+        (applicationContext != null ? applicationContext : context).registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                FlowTextWidthCache.onTrimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                clear();
+            }
+        });
+    }
+
+    /**
+     * 缓存的 key，保存影响单行文字宽度的画笔属性
+     */
+    private static final class Key {
+        private String text;
+        private Typeface typeface;
+        private float textSize;
+        private float letterSpacing;
+        private float textScaleX;
+        private int flags;
+        private int hashCode;
+
+        Key set(String text, TextPaint paint) {
+            this.text = text;
+            this.typeface = paint.getTypeface();
+            this.textSize = paint.getTextSize();
+            this.letterSpacing = paint.getLetterSpacing();
+            this.textScaleX = paint.getTextScaleX();
+            this.flags = paint.getFlags();
+            int result = text.hashCode();
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + Float.floatToIntBits(letterSpacing);
+            result = 31 * result + Float.floatToIntBits(textScaleX);
+            result = 31 * result + flags;
+            this.hashCode = result;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hashCode == key.hashCode
+                    && textSize == key.textSize
+                    && letterSpacing == key.letterSpacing
+                    && textScaleX == key.textScaleX
+                    && flags == key.flags
+                    && typeface == key.typeface
+                    && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.renj.flowlayout;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Layout;
+import android.text.PrecomputedText;
+import android.text.TextPaint;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   16:05
+ * <p>
+ * 描述：单行文字标签适配器，每一项都是一个 {@link TextView}。<br/>
+ * 调用 {@link #setData(List)} / {@link #addData(List)} 方法后，在后台线程中计算所有文字的宽度
+ * （API 28 及以上使用 {@link PrecomputedText}，以下使用 {@link Layout#getDesiredWidth(CharSequence, TextPaint)}），
+ * 计算完成后回到主线程替换数据并刷新。{@link FlowLayout} 测量时直接使用计算好的尺寸，不需要在主线程中绑定和测量 {@link TextView}，
+ * 只有显示出来的子控件才会真正绑定数据，API 28 及以上绑定的是已经完成文字排版的 {@link PrecomputedText}。<br/>
+ * 注意：<br/>
+ * 1. 数据计算完成之前 {@link #getItemCount()} 返回的还是之前的数据；<br/>
+ * 2. {@link #onCreateTextView(Context)} 创建的控件需要是单行、宽高为 {@link ViewGroup.LayoutParams#WRAP_CONTENT} 的，
+ * 影响文字尺寸的属性（字体、字号、内边距等）修改后需要调用 {@link #notifyTextStyleChanged()} 方法；<br/>
+ * 3. 文字超过 {@link FlowLayout} 内容宽度需要换行时，该项会退回到主线程中正常测量；<br/>
+ * 4. 设置了 {@link #setItemCallback(FlowDiffUtil.ItemCallback)} 时，{@link #setData(List)} 同时在后台线程中计算和当前数据的差异，
+ * 只通知改变了的部分，没有改变的数据保持原来的子控件和测量结果；<br/>
+ * 5. 构造方法中传入的数据在设置给 {@link FlowLayout} 时（或者之后第一次调用 {@link #setData(List)}、{@link #addData(List)} 时）才开始计算，
+ * 这时子类已经构造完成，{@link #onCreateTextView(Context)} 中可以使用子类自己的字段。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public abstract class TextTagFlowLayoutAdapter<T> extends FlowLayoutAdapter {
+    // 默认的后台计算线程，所有适配器共用，按提交顺序执行
+    private static ExecutorService sDefaultExecutor;
+
+    private final Context mContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private Executor mPrecomputeExecutor;
+    private FlowDiffUtil.ItemCallback<T> mItemCallback;
+
+    // 当前显示的数据和对应的计算结果，只在主线程中修改
+    private final List<T> mDataList = new ArrayList<>();
+    private CharSequence[] mTexts = new CharSequence[0];
+    private int[] mWidths = new int[0];
+    private TextMetrics mTextMetrics;
+
+    // 用于计算文字尺寸的样板控件和从样板控件中获取的参数
+    private TextView mPrototypeView;
+    private TextMetrics mPrototypeMetrics;
+    // 数据版本，setData() 之后，之前提交的还没有完成的计算结果全部丢弃
+    private int mDataGeneration;
+    // 还没有完成的计算任务数量
+    private int mPendingTaskCount;
+    // 构造方法中传入的数据，还没有提交计算。构造方法中子类的字段还没有初始化，不能调用 onCreateTextView()
+    private List<T> mInitialDataList;
+
+    public TextTagFlowLayoutAdapter(Context context) {
+        this.mContext = context;
+    }
+
+    public TextTagFlowLayoutAdapter(Context context, List<T> dataList) {
+        this(context);
+        mInitialDataList = dataList == null ? new ArrayList<T>() : new ArrayList<>(dataList);
+    }
+
+    /**
+     * 创建显示文字的控件，并设置好样式（字号、内边距、外边距等），不需要设置文字。
+     * 同时也会用来创建计算文字尺寸的样板控件
+     *
+     * @param context 上下文
+     * @return 显示文字的控件
+     */
+    protected abstract TextView onCreateTextView(Context context);
+
+    /**
+     * 文字设置完成之后调用，用于设置其他会变化的状态（选中状态的颜色、背景等），不能修改影响控件尺寸的属性
+     *
+     * @param textView 显示文字的控件
+     * @param item     数据
+     * @param position 位置
+     */
+    protected void onBindTextView(TextView textView, T item, int position) {
+    }
+
+    /**
+     * 获取数据需要显示的文字，在后台线程中调用，默认使用 {@link String#valueOf(Object)}
+     *
+     * @param item 数据
+     * @return 需要显示的文字
+     */
+    protected CharSequence getItemText(T item) {
+        return String.valueOf(item);
+    }
+
+    /**
+     * 设置计算文字尺寸的执行器，执行器需要按提交顺序执行任务。默认使用所有适配器共用的单个后台线程
+     *
+     * @param executor 执行器，{@code null} 时使用默认执行器
+     */
+    public void setPrecomputeExecutor(Executor executor) {
+        this.mPrecomputeExecutor = executor;
+    }
+
+    /**
+     * 设置比较数据的回调，设置后 {@link #setData(List)} 只通知和当前数据相比改变了的部分，而不是调用 {@link #notifyChange()}
+     *
+     * @param itemCallback 比较数据的回调，{@code null} 时不计算差异
+     */
+    public void setItemCallback(FlowDiffUtil.ItemCallback<T> itemCallback) {
+        this.mItemCallback = itemCallback;
+    }
+
+    /**
+     * 设置新的数据，在后台线程中计算完成后替换当前数据并调用 {@link #notifyChange()} 方法
+     * （设置了 {@link #setItemCallback(FlowDiffUtil.ItemCallback)} 时只通知改变了的部分）
+     *
+     * @param dataList 数据，会复制一份，之后修改这个集合不会影响适配器
+     */
+    public void setData(List<T> dataList) {
+        // 构造方法中传入的数据还没有计算时，直接被新数据替换
+        mInitialDataList = null;
+        mDataGeneration++;
+        submit(dataList, false);
+    }
+
+    /**
+     * 在末尾增加数据，在后台线程中计算完成后增加到当前数据中并调用 {@link #notifyItemsAppended(int)} 方法
+     *
+     * @param dataList 增加的数据
+     */
+    public void addData(List<T> dataList) {
+        submitInitialData();
+        submit(dataList, true);
+    }
+
+    /**
+     * 影响文字尺寸的样式改变了，重新创建样板控件，并重新计算当前所有数据的尺寸
+     */
+    public void notifyTextStyleChanged() {
+        mPrototypeView = null;
+        // 构造方法中传入的数据还没有计算时，之后按新的样式计算即可
+        if (mInitialDataList != null) return;
+
+        setData(new ArrayList<>(mDataList));
+    }
+
+    /**
+     * 是否还有没有完成的计算任务（包括构造方法中传入的、还没有开始计算的数据）
+     */
+    public boolean isPrecomputing() {
+        return mPendingTaskCount > 0 || mInitialDataList != null;
+    }
+
+    @Override
+    protected void setFlowLayout(FlowLayout flowLayout) {
+        super.setFlowLayout(flowLayout);
+        // 设置给 FlowLayout 时子类已经构造完成，开始计算构造方法中传入的数据
+        submitInitialData();
+    }
+
+    /**
+     * 获取当前显示的数据（不可修改）
+     */
+    public List<T> getData() {
+        return Collections.unmodifiableList(mDataList);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mDataList.size();
+    }
+
+    @Override
+    public T getItem(int position) {
+        return mDataList.get(position);
+    }
+
+    @Override
+    protected View onCreateView(Context context, FlowLayout flowLayout, int viewType) {
+        return onCreateTextView(context);
+    }
+
+    @Override
+    protected void onBindView(View view, int position) {
+        TextView textView = (TextView) view;
+        CharSequence text = mTexts[position];
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P && text instanceof PrecomputedText
+                && !((PrecomputedText) text).getParams().equals(textView.getTextMetricsParams())) {
+            // 控件样式和计算时不一致，PrecomputedText 不能直接使用
+            text = text.toString();
+        }
+        textView.setText(text);
+        onBindTextView(textView, mDataList.get(position), position);
+    }
+
+    @Override
+    boolean getPrecomputedSize(int position, int maxWidth, int maxHeight, int[] itemSize) {
+        TextMetrics textMetrics = mTextMetrics;
+        if (textMetrics == null || !textMetrics.supported) return false;
+
+        int width = mWidths[position];
+        if (width > maxWidth || textMetrics.height > maxHeight) return false;
+
+        itemSize[FlowMeasureCache.WIDTH] = width;
+        itemSize[FlowMeasureCache.HEIGHT] = textMetrics.height;
+        itemSize[FlowMeasureCache.LEFT_MARGIN] = textMetrics.leftMargin;
+        itemSize[FlowMeasureCache.TOP_MARGIN] = textMetrics.topMargin;
+        itemSize[FlowMeasureCache.RIGHT_MARGIN] = textMetrics.rightMargin;
+        itemSize[FlowMeasureCache.BOTTOM_MARGIN] = textMetrics.bottomMargin;
+        itemSize[FlowMeasureCache.GONE] = 0;
+        return true;
+    }
+
+    /**
+     * 提交构造方法中传入的数据，只提交一次
+     */
+    private void submitInitialData() {
+        if (mInitialDataList == null) return;
+
+        List<T> dataList = mInitialDataList;
+        mInitialDataList = null;
+        mDataGeneration++;
+        submit(dataList, false);
+    }
+
+    /**
+     * 提交后台计算任务
+     *
+     * @param dataList 数据
+     * @param append   true：增加到当前数据末尾  false：替换当前数据
+     */
+    private void submit(List<T> dataList, final boolean append) {
+        final List<T> data = dataList == null ? new ArrayList<T>() : new ArrayList<>(dataList);
+        final TextMetrics textMetrics = obtainTextMetrics();
+        final int generation = mDataGeneration;
+        // 替换数据时和当前数据比较差异，之前版本的计算结果都会被丢弃，应用结果时当前数据还是这份数据
+        final List<T> oldData = !append && mItemCallback != null && !mDataList.isEmpty() ? new ArrayList<>(mDataList) : null;
+        final FlowDiffUtil.ItemCallback<T> itemCallback = mItemCallback;
+        mPendingTaskCount++;
+        getPrecomputeExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final CharSequence[] texts = new CharSequence[data.size()];
+                final int[] widths = new int[data.size()];
+                precompute(data, textMetrics, texts, widths);
+                final FlowDiffUtil.DiffResult diffResult = oldData != null
+                        ? FlowDiffUtil.calculateDiff(oldData, data, itemCallback) : null;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mPendingTaskCount--;
+                        if (generation != mDataGeneration) return;
+                        if (append) {
+                            applyAppended(data, textMetrics, texts, widths);
+                        } else {
+                            applyData(data, textMetrics, texts, widths, diffResult);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在后台线程中计算每一项文字的宽度。{@link FlowTextWidthCache} 中已经有的直接使用缓存的宽度，
+     * 这时不创建 {@link PrecomputedText}，单行文字在绑定时排版的开销很小
+     */
+    private void precompute(List<T> data, TextMetrics textMetrics, CharSequence[] texts, int[] widths) {
+        TextPaint textPaint = textMetrics.textPaint;
+        for (int i = 0, size = data.size(); i < size; i++) {
+            CharSequence text = getItemText(data.get(i));
+            if (text == null) {
+                text = "";
+            }
+            // 其他页面已经计算过相同的文字时直接使用缓存的宽度
+            float textWidth = FlowTextWidthCache.get(textPaint, text);
+            if (Float.isNaN(textWidth)) {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P && textMetrics.precomputedParams != null) {
+                    PrecomputedText precomputedText = PrecomputedText.create(text, textMetrics.precomputedParams);
+                    textWidth = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                            ? precomputedText.getWidth(0, precomputedText.length())
+                            : Layout.getDesiredWidth(precomputedText, textPaint);
+                    FlowTextWidthCache.put(textPaint, text, textWidth);
+                    text = precomputedText;
+                } else {
+                    textWidth = FlowTextWidthCache.getTextWidth(textPaint, text);
+                }
+            }
+            texts[i] = text;
+            widths[i] = Math.max((int) Math.ceil(textWidth) + textMetrics.horizontalPadding, textMetrics.minWidth);
+        }
+    }
+
+    private void applyData(List<T> data, TextMetrics textMetrics, CharSequence[] texts, int[] widths,
+                           FlowDiffUtil.DiffResult diffResult) {
+        // 样式改变了（样板控件不同）时所有尺寸都可能改变，不能只通知差异
+        boolean sameMetrics = textMetrics == mTextMetrics;
+        mDataList.clear();
+        mDataList.addAll(data);
+        mTexts = texts;
+        mWidths = widths;
+        mTextMetrics = textMetrics;
+        if (diffResult != null && sameMetrics) {
+            diffResult.dispatchUpdatesTo(this);
+        } else {
+            notifyChange();
+        }
+    }
+
+    private void applyAppended(List<T> data, TextMetrics textMetrics, CharSequence[] texts, int[] widths) {
+        if (data.isEmpty()) return;
+
+        int oldSize = mDataList.size();
+        int newSize = oldSize + data.size();
+        CharSequence[] newTexts = new CharSequence[newSize];
+        int[] newWidths = new int[newSize];
+        System.arraycopy(mTexts, 0, newTexts, 0, oldSize);
+        System.arraycopy(mWidths, 0, newWidths, 0, oldSize);
+        System.arraycopy(texts, 0, newTexts, oldSize, data.size());
+        System.arraycopy(widths, 0, newWidths, oldSize, data.size());
+        mDataList.addAll(data);
+        mTexts = newTexts;
+        mWidths = newWidths;
+        // 同一版本的数据使用的是同一个样板控件，参数相同
+        mTextMetrics = textMetrics;
+        notifyItemsAppended(data.size());
+    }
+
+    /**
+     * 根据样板控件获取计算文字尺寸需要的参数，在主线程中调用
+     */
+    private TextMetrics obtainTextMetrics() {
+        if (mPrototypeView == null) {
+            mPrototypeView = onCreateTextView(mContext);
+            mPrototypeMetrics = null;
+        }
+        if (mPrototypeMetrics != null) return mPrototypeMetrics;
+
+        TextView prototypeView = mPrototypeView;
+        TextMetrics textMetrics = new TextMetrics();
+        ViewGroup.LayoutParams layoutParams = prototypeView.getLayoutParams();
+        textMetrics.supported = layoutParams == null
+                || (layoutParams.width == ViewGroup.LayoutParams.WRAP_CONTENT
+                && layoutParams.height == ViewGroup.LayoutParams.WRAP_CONTENT);
+        if (layoutParams instanceof ViewGroup.MarginLayoutParams) {
+            ViewGroup.MarginLayoutParams marginLayoutParams = (ViewGroup.MarginLayoutParams) layoutParams;
+            textMetrics.leftMargin = marginLayoutParams.leftMargin;
+            textMetrics.topMargin = marginLayoutParams.topMargin;
+            textMetrics.rightMargin = marginLayoutParams.rightMargin;
+            textMetrics.bottomMargin = marginLayoutParams.bottomMargin;
+        }
+
+        // 没有文字时的尺寸就是单行文字的高度和最小宽度
+        prototypeView.setText("");
+        int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        prototypeView.measure(unspecified, unspecified);
+        textMetrics.minWidth = prototypeView.getMeasuredWidth();
+        textMetrics.height = prototypeView.getMeasuredHeight();
+        textMetrics.horizontalPadding = prototypeView.getCompoundPaddingLeft() + prototypeView.getCompoundPaddingRight();
+        // 复制一份，后台线程中使用
+        textMetrics.textPaint = new TextPaint(prototypeView.getPaint());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            textMetrics.precomputedParams = prototypeView.getTextMetricsParams();
+        }
+        mPrototypeMetrics = textMetrics;
+        return textMetrics;
+    }
+
+    private Executor getPrecomputeExecutor() {
+        if (mPrecomputeExecutor != null) return mPrecomputeExecutor;
+        synchronized (TextTagFlowLayoutAdapter.class) {
+            if (sDefaultExecutor == null) {
+                sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "FlowLayout-TextPrecompute");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return sDefaultExecutor;
+        }
+    }
+
+    /**
+     * 计算文字尺寸需要的参数，创建之后不再修改，可以在后台线程中使用
+     */
+    private static class TextMetrics {
+        private boolean supported;          // 样板控件是否支持预先计算尺寸
+        private int minWidth;               // 没有文字时的宽度
+        private int height;                 // 单行文字的高度
+        private int horizontalPadding;      // 左右内边距之和
+        private int leftMargin;
+        private int topMargin;
+        private int rightMargin;
+        private int bottomMargin;
+        private TextPaint textPaint;
+        private PrecomputedText.Params precomputedParams;
+    }
+}
@@ -0,0 +1,551 @@
+package com.renj.flowlayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ======================================================================
+ * <p>
+ * 作者：Renj
+ * <p>
+ * 创建时间：2026-10-18   23:55
+ * <p>
+ * 描述：{@link FlowLineBreaker} 单元测试，在 JVM 上运行。<br/>
+ * 增量换行（从某一行开始重新换行、复用旧行、末尾追加、插入/删除/移动）的结果都和一次性计算的结果比较。
+ * <p>
+ * 修订历史：
+ * <p>
+ * ======================================================================
+ */
+public class FlowLineBreakerTest {
+    private static final int CONTENT_WIDTH = 100;
+    private static final int H_SPACING = 10;
+    private static final int V_SPACING = 5;
+    private static final int ITEM_HEIGHT = 10;
+
+    private FlowLineBreaker mLineBreaker;
+
+    @Before
+    public void setUp() {
+        mLineBreaker = newLineBreaker();
+    }
+
+    private static FlowLineBreaker newLineBreaker() {
+        FlowLineBreaker lineBreaker = new FlowLineBreaker();
+        lineBreaker.setContentWidth(CONTENT_WIDTH);
+        lineBreaker.setSpacing(H_SPACING, V_SPACING);
+        return lineBreaker;
+    }
+
+    @Test
+    public void breakLines_withSpacing() {
+        int rowCount = mLineBreaker.breakLines(4, new int[]{30, 30, 30, 30}, new int[]{10, 20, 10, 10}, null);
+
+        // 30 + 10 + 30 = 70，再加一个超过 100，每行 2 个
+        assertEquals(2, rowCount);
+        assertRow(0, 0, 2, 0, 20, 70);
+        assertRow(1, 2, 4, 25, 10, 70);
+        assertItem(1, 0, 40, 0, 70, 20);
+        assertItem(2, 1, 0, 25, 30, 35);
+        assertEquals(4, mLineBreaker.getPlacedItemCount());
+        assertEquals(35, mLineBreaker.getContentBottom());
+    }
+
+    @Test
+    public void breakLines_withMargins() {
+        mLineBreaker.breakLines(2, new int[]{20, 20}, new int[]{10, 10}, new int[]{5, 2, 5, 3, 0, 0, 0, 0});
+
+        // 第一个子控件占用 5 + 20 + 5 = 30，高度 2 + 10 + 3 = 15
+        assertRow(0, 0, 2, 0, 15, 60);
+        assertItem(0, 0, 5, 2, 25, 12);
+        assertItem(1, 0, 40, 0, 60, 10);
+    }
+
+    @Test
+    public void breakLines_withOrigin() {
+        mLineBreaker.setOrigin(7, 9);
+        mLineBreaker.breakLines(1, new int[]{20}, new int[]{10}, null);
+
+        assertRow(0, 0, 1, 9, 10, 20);
+        assertItem(0, 0, 7, 9, 27, 19);
+        assertEquals(19, mLineBreaker.getContentBottom());
+    }
+
+    @Test
+    public void breakLines_skipsGoneItems() {
+        mLineBreaker.breakLines(3, new int[]{30, FlowLineBreaker.GONE, 30}, new int[]{10, 10, 10}, null);
+
+        assertEquals(1, mLineBreaker.getRowCount());
+        assertEquals(FlowLineBreaker.NO_ROW, mLineBreaker.getItemRow(1));
+        assertItem(2, 0, 40, 0, 70, 10);
+        assertEquals(2, mLineBreaker.getRowItemCount(0));
+        assertEquals(2, mLineBreaker.getPlacedItemCount());
+    }
+
+    @Test
+    public void breakLines_withMaxRowCount() {
+        mLineBreaker.setMaxRowCount(2);
+        int[] widths = fill(6, 60);
+        int rowCount = mLineBreaker.breakLines(6, widths, fill(6, ITEM_HEIGHT), null);
+
+        assertEquals(2, rowCount);
+        assertEquals(2, mLineBreaker.getPlacedItemCount());
+        assertTrue(mLineBreaker.isRowLimitReached());
+        for (int i = 2; i < 6; i++) {
+            assertEquals(FlowLineBreaker.NO_ROW, mLineBreaker.getItemRow(i));
+        }
+    }
+
+    @Test
+    public void breakLines_maxRowCountZero() {
+        mLineBreaker.setMaxRowCount(0);
+        int rowCount = mLineBreaker.breakLines(3, fill(3, 20), fill(3, ITEM_HEIGHT), null);
+
+        assertEquals(0, rowCount);
+        assertEquals(0, mLineBreaker.getPlacedItemCount());
+        assertTrue(mLineBreaker.isRowLimitReached());
+    }
+
+    /**
+     * 第一个子控件超过内容宽度时单独占一行，不会在前面产生空行（原来的 onMeasure() 会先产生一个空行）
+     */
+    @Test
+    public void breakLines_firstItemWiderThanContent() {
+        mLineBreaker.breakLines(2, new int[]{150, 30}, new int[]{20, 10}, null);
+
+        assertEquals(2, mLineBreaker.getRowCount());
+        assertRow(0, 0, 1, 0, 20, 150);
+        assertItem(0, 0, 0, 0, 150, 20);
+        assertRow(1, 1, 2, 25, 10, 30);
+    }
+
+    @Test
+    public void breakLines_itemWiderThanContentInMiddle() {
+        mLineBreaker.breakLines(3, new int[]{30, 150, 30}, fill(3, ITEM_HEIGHT), null);
+
+        assertEquals(3, mLineBreaker.getRowCount());
+        assertRow(0, 0, 1, 0, 10, 30);
+        assertRow(1, 1, 2, 15, 10, 150);
+        assertRow(2, 2, 3, 30, 10, 30);
+    }
+
+    @Test
+    public void addItem_returnsResults() {
+        mLineBreaker.setMaxRowCount(2);
+        mLineBreaker.setItemCount(4);
+        assertEquals(0, mLineBreaker.beginBreak(0, Integer.MAX_VALUE));
+        assertEquals(FlowLineBreaker.RESULT_ADDED, addItem(mLineBreaker, 0, 60));
+        assertEquals(FlowLineBreaker.RESULT_NEW_ROW, addItem(mLineBreaker, 1, 60));
+        assertEquals(FlowLineBreaker.RESULT_ROW_LIMIT, addItem(mLineBreaker, 2, 60));
+        assertEquals(FlowLineBreaker.RESULT_ROW_LIMIT, addItem(mLineBreaker, 3, 60));
+        assertFalse(mLineBreaker.endBreak());
+        assertEquals(2, mLineBreaker.getRowCount());
+    }
+
+    @Test
+    public void beginBreak_reusesUnchangedRows() {
+        // 每行 3 个：20 + 10 + 20 + 10 + 20 = 80
+        int[] widths = fill(9, 20);
+        int[] heights = fill(9, ITEM_HEIGHT);
+        mLineBreaker.breakLines(9, widths, heights, null);
+
+        // 第 1 个子控件变高，宽度不变，从第 0 行开始重新换行，位置 2 之后没有改变
+        heights[1] = 30;
+        int start = mLineBreaker.beginBreak(mLineBreaker.findRowForPosition(0), 2);
+        assertEquals(0, start);
+        int result = addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertEquals(FlowLineBreaker.RESULT_ROWS_REUSED, result);
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+        assertEquals(35, mLineBreaker.getItemTop(3));
+    }
+
+    @Test
+    public void beginBreak_rebreaksWhenRowsChange() {
+        int[] widths = fill(9, 20);
+        int[] heights = fill(9, ITEM_HEIGHT);
+        mLineBreaker.breakLines(9, widths, heights, null);
+
+        // 第 0 个子控件变宽，之后每一行的开始位置都改变了，不能复用
+        widths[0] = 60;
+        int start = mLineBreaker.beginBreak(0, 1);
+        int result = addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertTrue(result != FlowLineBreaker.RESULT_ROWS_REUSED);
+        assertEquals(4, mLineBreaker.getRowCount());
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+    }
+
+    @Test
+    public void beginBreak_fromMiddleRowKeepsPreviousRows() {
+        int[] widths = {20, 20, 20, 20, 20, 20, 20, 20, 20};
+        int[] heights = fill(9, ITEM_HEIGHT);
+        mLineBreaker.breakLines(9, widths, heights, null);
+
+        widths[4] = 50;
+        int start = mLineBreaker.beginBreak(mLineBreaker.findRowForPosition(3), Integer.MAX_VALUE);
+        assertEquals(3, start);
+        addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+    }
+
+    @Test
+    public void beginBreak_noReuseWithMaxRowCount() {
+        mLineBreaker.setMaxRowCount(10);
+        int[] widths = fill(9, 20);
+        int[] heights = fill(9, ITEM_HEIGHT);
+        mLineBreaker.breakLines(9, widths, heights, null);
+
+        heights[1] = 30;
+        int start = mLineBreaker.beginBreak(0, 2);
+        int result = addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        // 设置了最大行数时不复用旧行
+        assertTrue(result != FlowLineBreaker.RESULT_ROWS_REUSED);
+        FlowLineBreaker expected = newLineBreaker();
+        expected.setMaxRowCount(10);
+        expected.breakLines(9, widths, heights, null);
+        assertSameLayout(expected, mLineBreaker);
+    }
+
+    @Test
+    public void beginAppend_opensLastRow() {
+        int[] widths = fill(8, 20);
+        int[] heights = fill(8, ITEM_HEIGHT);
+        mLineBreaker.breakLines(8, widths, heights, null);
+        assertEquals(3, mLineBreaker.getRowCount());
+
+        // 最后一行有 2 个，追加 2 个：第一个放在最后一行，第二个换行
+        widths = fill(10, 20);
+        heights = fill(10, ITEM_HEIGHT);
+        mLineBreaker.onItemRangeInserted(8, 2);
+        int start = mLineBreaker.beginAppend();
+        assertEquals(8, start);
+        addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertEquals(4, mLineBreaker.getRowCount());
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+    }
+
+    @Test
+    public void beginAppend_afterRowLimit() {
+        mLineBreaker.setMaxRowCount(1);
+        mLineBreaker.breakLines(5, fill(5, 20), fill(5, ITEM_HEIGHT), null);
+        assertTrue(mLineBreaker.isRowLimitReached());
+
+        mLineBreaker.onItemRangeInserted(5, 1);
+        int start = mLineBreaker.beginAppend();
+        assertEquals(6, start);
+        assertFalse(mLineBreaker.endBreak());
+        assertEquals(1, mLineBreaker.getRowCount());
+        assertEquals(3, mLineBreaker.getPlacedItemCount());
+        assertEquals(FlowLineBreaker.NO_ROW, mLineBreaker.getItemRow(5));
+    }
+
+    @Test
+    public void onItemRangeInserted_shiftsRows() {
+        mLineBreaker.breakLines(9, fill(9, 20), fill(9, ITEM_HEIGHT), null);
+
+        mLineBreaker.onItemRangeInserted(4, 1);
+
+        assertEquals(10, mLineBreaker.getItemCount());
+        assertEquals(3, mLineBreaker.getRowStart(1));
+        assertEquals(7, mLineBreaker.getRowEnd(1));
+        assertEquals(7, mLineBreaker.getRowStart(2));
+        assertEquals(10, mLineBreaker.getRowEnd(2));
+        assertEquals(FlowLineBreaker.NO_ROW, mLineBreaker.getItemRow(4));
+        assertEquals(1, mLineBreaker.getItemRow(5));
+    }
+
+    @Test
+    public void onItemRangeInserted_rebreakReusesRows() {
+        mLineBreaker.breakLines(9, fill(9, 20), fill(9, ITEM_HEIGHT), null);
+
+        // 插入一整行的子控件，之后的行不变
+        mLineBreaker.onItemRangeInserted(3, 3);
+        int[] widths = fill(12, 20);
+        int[] heights = fill(12, ITEM_HEIGHT);
+        int start = mLineBreaker.beginBreak(mLineBreaker.findRowForPosition(2), 6);
+        int result = addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertEquals(FlowLineBreaker.RESULT_ROWS_REUSED, result);
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+    }
+
+    @Test
+    public void onItemRangeInserted_rebreakWithoutReuse() {
+        mLineBreaker.breakLines(9, fill(9, 20), fill(9, ITEM_HEIGHT), null);
+
+        mLineBreaker.onItemRangeInserted(4, 1);
+        int[] widths = fill(10, 20);
+        int[] heights = fill(10, ITEM_HEIGHT);
+        int start = mLineBreaker.beginBreak(mLineBreaker.findRowForPosition(3), 5);
+        addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+    }
+
+    @Test
+    public void onItemRangeRemoved_collapsesRowAndReuses() {
+        mLineBreaker.breakLines(9, fill(9, 20), fill(9, ITEM_HEIGHT), null);
+
+        // 移除第 1 行的所有子控件，第 1 行变为空行
+        mLineBreaker.onItemRangeRemoved(3, 3);
+        assertEquals(6, mLineBreaker.getItemCount());
+        assertEquals(3, mLineBreaker.getRowStart(1));
+        assertEquals(3, mLineBreaker.getRowEnd(1));
+        assertEquals(3, mLineBreaker.getRowStart(2));
+        assertEquals(6, mLineBreaker.getRowEnd(2));
+
+        int[] widths = fill(6, 20);
+        int[] heights = fill(6, ITEM_HEIGHT);
+        int start = mLineBreaker.beginBreak(mLineBreaker.findRowForPosition(2), 3);
+        int result = addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertEquals(FlowLineBreaker.RESULT_ROWS_REUSED, result);
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+    }
+
+    @Test
+    public void onItemRangeRemoved_partOfRow() {
+        int[] widths = {20, 20, 20, 20, 20, 20, 20, 20, 20};
+        mLineBreaker.breakLines(9, widths, fill(9, ITEM_HEIGHT), null);
+
+        mLineBreaker.onItemRangeRemoved(4, 1);
+        assertEquals(3, mLineBreaker.getRowStart(1));
+        assertEquals(5, mLineBreaker.getRowEnd(1));
+        assertEquals(2, mLineBreaker.getRowItemCount(1));
+        assertEquals(8, mLineBreaker.getPlacedItemCount());
+
+        widths = fill(8, 20);
+        int[] heights = fill(8, ITEM_HEIGHT);
+        int start = mLineBreaker.beginBreak(mLineBreaker.findRowForPosition(3), 4);
+        addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+    }
+
+    @Test
+    public void onItemMoved_rebreakMatchesFreshLayout() {
+        int[] widths = {20, 50, 20, 30, 20, 40, 20, 20, 60};
+        int[] heights = {10, 12, 10, 14, 10, 10, 16, 10, 10};
+        mLineBreaker.breakLines(9, widths, heights, null);
+        int oldRow = mLineBreaker.getItemRow(1);
+
+        // 把位置 1 移动到位置 6，两个位置之间的行需要重新换行
+        mLineBreaker.onItemMoved(1, 6);
+        assertEquals(oldRow, mLineBreaker.getItemRow(6));
+        move(widths, 1, 6);
+        move(heights, 1, 6);
+        int start = mLineBreaker.beginBreak(mLineBreaker.findRowForPosition(0), 7);
+        addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+    }
+
+    @Test
+    public void breakUniform_matchesBreakLines() {
+        mLineBreaker.setItemCount(10);
+        mLineBreaker.breakUniform(20, ITEM_HEIGHT);
+
+        // (100 + 10) / (20 + 10) = 3
+        assertEquals(3, mLineBreaker.getUniformItemsPerRow());
+        assertEquals(4, mLineBreaker.getRowCount());
+        assertItem(4, 1, 30, 15, 50, 25);
+        assertEquals(3, mLineBreaker.getItemRow(9));
+        assertSameLayout(breakLines(fill(10, 20), fill(10, ITEM_HEIGHT)), mLineBreaker);
+    }
+
+    @Test
+    public void breakUniform_withMaxRowCount() {
+        mLineBreaker.setMaxRowCount(2);
+        mLineBreaker.setItemCount(10);
+        mLineBreaker.breakUniform(20, ITEM_HEIGHT);
+
+        assertEquals(2, mLineBreaker.getRowCount());
+        assertEquals(6, mLineBreaker.getPlacedItemCount());
+        assertTrue(mLineBreaker.isRowLimitReached());
+        assertEquals(FlowLineBreaker.NO_ROW, mLineBreaker.getItemRow(6));
+    }
+
+    @Test
+    public void breakUniform_itemWiderThanContent() {
+        mLineBreaker.setItemCount(3);
+        mLineBreaker.breakUniform(150, ITEM_HEIGHT);
+
+        assertEquals(1, mLineBreaker.getUniformItemsPerRow());
+        assertEquals(3, mLineBreaker.getRowCount());
+    }
+
+    @Test
+    public void beginBreak_afterBreakUniformStartsFromFirstRow() {
+        mLineBreaker.setItemCount(9);
+        mLineBreaker.breakUniform(20, ITEM_HEIGHT);
+
+        int start = mLineBreaker.beginBreak(2, Integer.MAX_VALUE);
+        assertEquals(0, start);
+        assertEquals(0, mLineBreaker.getUniformItemsPerRow());
+        int[] widths = fill(9, 30);
+        int[] heights = fill(9, ITEM_HEIGHT);
+        addItems(mLineBreaker, start, widths, heights);
+        mLineBreaker.endBreak();
+
+        assertSameLayout(breakLines(widths, heights), mLineBreaker);
+    }
+
+    @Test
+    public void computeOffsetX_matchesOriginalLayout() {
+        int[] gravities = {FlowLineBreaker.GRAVITY_LEFT, FlowLineBreaker.GRAVITY_RIGHT,
+                FlowLineBreaker.GRAVITY_LEFT_RIGHT, FlowLineBreaker.GRAVITY_CENTER};
+        for (int gravity : gravities) {
+            for (int usedWidth = 0; usedWidth <= CONTENT_WIDTH + 20; usedWidth += 7) {
+                for (int itemCount = 1; itemCount <= 5; itemCount++) {
+                    for (int index = 0; index < itemCount; index++) {
+                        assertEquals("gravity " + gravity + " used " + usedWidth + " count " + itemCount + " index " + index,
+                                originalOffsetX(gravity, CONTENT_WIDTH, usedWidth, itemCount, index),
+                                FlowLineBreaker.computeOffsetX(gravity, CONTENT_WIDTH, usedWidth, itemCount, index));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getRowOffsetX_usesRowInfo() {
+        mLineBreaker.breakLines(2, new int[]{30, 30}, fill(2, ITEM_HEIGHT), null);
+
+        assertEquals(0, mLineBreaker.getRowOffsetX(FlowLineBreaker.GRAVITY_LEFT, 0, 1));
+        assertEquals(30, mLineBreaker.getRowOffsetX(FlowLineBreaker.GRAVITY_RIGHT, 0, 1));
+        assertEquals(30, mLineBreaker.getRowOffsetX(FlowLineBreaker.GRAVITY_LEFT_RIGHT, 0, 1));
+        assertEquals(15, mLineBreaker.getRowOffsetX(FlowLineBreaker.GRAVITY_CENTER, 0, 1));
+    }
+
+    @Test
+    public void findRowAndItem() {
+        mLineBreaker.breakLines(6, fill(6, 20), fill(6, ITEM_HEIGHT), null);
+
+        assertEquals(1, mLineBreaker.findRowForPosition(4));
+        assertEquals(1, mLineBreaker.findRowForY(16));
+        assertEquals(FlowLineBreaker.NO_ROW, mLineBreaker.findRowAtY(12));
+        assertEquals(1, mLineBreaker.findFirstRowBelow(12));
+        assertEquals(4, mLineBreaker.findItemAt(FlowLineBreaker.GRAVITY_LEFT, 35, 18));
+        assertEquals(-1, mLineBreaker.findItemAt(FlowLineBreaker.GRAVITY_LEFT, 25, 18));
+    }
+
+    /**
+     * 原来 FlowLayout#onLayout() 中的偏移量计算
+     */
+    private static int originalOffsetX(int gravity, int contentWidth, int rowUsedWidth, int rowItemCount, int indexInRow) {
+        int offsetX = 0;
+        if (gravity == FlowLineBreaker.GRAVITY_RIGHT) {
+            offsetX = contentWidth - rowUsedWidth;
+        } else if (gravity == FlowLineBreaker.GRAVITY_LEFT_RIGHT) {
+            if (rowItemCount > 1) {
+                offsetX = (contentWidth - rowUsedWidth) / (rowItemCount - 1);
+            } else {
+                offsetX = 0;
+            }
+        } else if (gravity == FlowLineBreaker.GRAVITY_CENTER) {
+            offsetX = (contentWidth - rowUsedWidth) / 2;
+        }
+        return gravity == FlowLineBreaker.GRAVITY_LEFT_RIGHT ? offsetX * indexInRow : offsetX;
+    }
+
+    private static FlowLineBreaker breakLines(int[] widths, int[] heights) {
+        FlowLineBreaker lineBreaker = newLineBreaker();
+        lineBreaker.breakLines(widths.length, widths, heights, null);
+        return lineBreaker;
+    }
+
+    private static int addItem(FlowLineBreaker lineBreaker, int position, int width) {
+        return lineBreaker.addItem(position, width, ITEM_HEIGHT, 0, 0, 0, 0);
+    }
+
+    /**
+     * 从指定位置开始逐个添加，直到全部添加或者换行提前结束
+     *
+     * @return 最后一次添加的结果
+     */
+    private static int addItems(FlowLineBreaker lineBreaker, int start, int[] widths, int[] heights) {
+        int result = FlowLineBreaker.RESULT_ADDED;
+        for (int i = start; i < widths.length; i++) {
+            result = lineBreaker.addItem(i, widths[i], heights[i], 0, 0, 0, 0);
+            if (result == FlowLineBreaker.RESULT_ROW_LIMIT || result == FlowLineBreaker.RESULT_ROWS_REUSED) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static int[] fill(int count, int value) {
+        int[] array = new int[count];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    private static void move(int[] array, int fromPosition, int toPosition) {
+        int value = array[fromPosition];
+        if (fromPosition < toPosition) {
+            System.arraycopy(array, fromPosition + 1, array, fromPosition, toPosition - fromPosition);
+        } else {
+            System.arraycopy(array, toPosition, array, toPosition + 1, fromPosition - toPosition);
+        }
+        array[toPosition] = value;
+    }
+
+    private void assertRow(int row, int start, int end, int top, int height, int usedWidth) {
+        assertEquals("row " + row + " start", start, mLineBreaker.getRowStart(row));
+        assertEquals("row " + row + " end", end, mLineBreaker.getRowEnd(row));
+        assertEquals("row " + row + " top", top, mLineBreaker.getRowTop(row));
+        assertEquals("row " + row + " height", height, mLineBreaker.getRowHeight(row));
+        assertEquals("row " + row + " used width", usedWidth, mLineBreaker.getRowUsedWidth(row));
+    }
+
+    private void assertItem(int position, int row, int left, int top, int right, int bottom) {
+        assertEquals("item " + position + " row", row, mLineBreaker.getItemRow(position));
+        assertEquals("item " + position + " left", left, mLineBreaker.getItemLeft(position));
+        assertEquals("item " + position + " top", top, mLineBreaker.getItemTop(position));
+        assertEquals("item " + position + " right", right, mLineBreaker.getItemRight(position));
+        assertEquals("item " + position + " bottom", bottom, mLineBreaker.getItemBottom(position));
+    }
+
+    private static void assertSameLayout(FlowLineBreaker expected, FlowLineBreaker actual) {
+        assertEquals("row count", expected.getRowCount(), actual.getRowCount());
+        assertEquals("placed item count", expected.getPlacedItemCount(), actual.getPlacedItemCount());
+        for (int row = 0; row < expected.getRowCount(); row++) {
+            assertEquals("row " + row + " start", expected.getRowStart(row), actual.getRowStart(row));
+            assertEquals("row " + row + " end", expected.getRowEnd(row), actual.getRowEnd(row));
+            assertEquals("row " + row + " top", expected.getRowTop(row), actual.getRowTop(row));
+            assertEquals("row " + row + " height", expected.getRowHeight(row), actual.getRowHeight(row));
+            assertEquals("row " + row + " used width", expected.getRowUsedWidth(row), actual.getRowUsedWidth(row));
+            assertEquals("row " + row + " item count", expected.getRowItemCount(row), actual.getRowItemCount(row));
+        }
+        for (int i = 0; i < expected.getItemCount(); i++) {
+            int row = expected.getItemRow(i);
+            assertEquals("item " + i + " row", row, actual.getItemRow(i));
+            if (row == FlowLineBreaker.NO_ROW) continue;
+
+            assertEquals("item " + i + " left", expected.getItemLeft(i), actual.getItemLeft(i));
+            assertEquals("item " + i + " top", expected.getItemTop(i), actual.getItemTop(i));
+            assertEquals("item " + i + " right", expected.getItemRight(i), actual.getItemRight(i));
+            assertEquals("item " + i + " bottom", expected.getItemBottom(i), actual.getItemBottom(i));
+        }
+    }
+}